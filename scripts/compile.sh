@@ -70,7 +70,7 @@ fi
 
 # 编译所有Java文件
 echo "正在编译..."
-javac -encoding UTF-8 -d bin -sourcepath src src/common/*.java src/server/*.java src/client/*.java
+javac -encoding UTF-8 -d bin -sourcepath src src/common/*.java src/server/*.java src/client/*.java src/bench/*.java src/engine/*.java
 
 if [ $? -eq 0 ]; then
     echo ""
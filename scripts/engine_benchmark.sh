@@ -0,0 +1,20 @@
+#!/bin/bash
+
+# 切换到项目根目录
+cd "$(dirname "$0")/.." || exit 1
+
+echo "========================================"
+echo "五子棋 AI 引擎基准测试"
+echo "========================================"
+echo ""
+
+# 检查是否已编译
+if [ ! -f "bin/bench/EngineBenchmark.class" ]; then
+    echo "错误：项目尚未编译！"
+    echo "请先运行 ./scripts/compile.sh 编译项目"
+    echo ""
+    exit 1
+fi
+
+# 用法：./scripts/engine_benchmark.sh [搜索深度] [最大线程数] [置换表MB]
+java -Dfile.encoding=UTF-8 -cp bin bench.EngineBenchmark "$@"
@@ -25,6 +25,6 @@ echo.
 echo ========================================
 echo.
 
-java -cp bin server.Server
+java -cp bin server.Server %*
 
 pause
\ No newline at end of file
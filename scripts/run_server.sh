@@ -24,4 +24,4 @@ echo ""
 echo "========================================"
 echo ""
 
-java -cp bin server.Server
\ No newline at end of file
+java -cp bin server.Server "$@"
\ No newline at end of file
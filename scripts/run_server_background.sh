@@ -35,7 +35,8 @@ echo "默认端口: 8888"
 echo "日志文件: logs/server.log"
 echo ""
 
-nohup java -cp bin server.Server > logs/server.log 2>&1 &
+# 服务器日志由写日志线程写入 logs/server.log，控制台输出只保留 JVM 自身的错误信息
+nohup java -Dfiveqi.logConsole=false -cp bin server.Server "$@" > logs/console.log 2>&1 &
 echo $! > server.pid
 
 echo "服务器已启动 (PID: $(cat server.pid))"
@@ -26,6 +26,23 @@ if ps -p $PID > /dev/null 2>&1; then
     echo "进程信息:"
     ps -p $PID -o pid,ppid,cmd,%mem,%cpu,etime
     echo ""
+
+    # 查询管理端实时统计（只监听本机，端口可用 ADMIN_PORT 环境变量指定）
+    ADMIN_PORT=${ADMIN_PORT:-8889}
+    if command -v curl > /dev/null 2>&1; then
+        STATS=$(curl -s --max-time 2 "http://127.0.0.1:$ADMIN_PORT/stats")
+        if [ -n "$STATS" ]; then
+            echo "实时统计 (http://127.0.0.1:$ADMIN_PORT/stats):"
+            if command -v python3 > /dev/null 2>&1; then
+                echo "$STATS" | python3 -m json.tool
+            else
+                echo "$STATS"
+            fi
+        else
+            echo "管理端未响应 (端口 $ADMIN_PORT)"
+        fi
+        echo ""
+    fi
     
     # 显示最近的日志
     if [ -f "logs/server.log" ]; then
@@ -0,0 +1,87 @@
+package bench;
+
+import engine.Engine;
+import engine.SearchLimits;
+import engine.SearchResult;
+import server.ChessRule;
+
+/**
+ * AI 引擎多线程搜索基准测试
+ * 对一组固定的 ChessRule 局面做固定深度搜索，分别用 1、2、4、8... 个线程，
+ * 报告总耗时、总节点数、每秒节点数和相对单线程的加速比（按搜到同一深度的耗时计算）。
+ * 每个局面搜索前清空置换表，各线程数的测试互不影响
+ *
+ * 用法：java -cp bin bench.EngineBenchmark [搜索深度] [最大线程数] [置换表MB]
+ */
+public class EngineBenchmark {
+
+    /**
+     * 测试局面：按落子顺序排列的 {x, y}，黑棋先行，交替落子
+     */
+    private static final int[][][] POSITIONS = {
+        // 开局：斜月附近
+        {{7, 7}, {7, 8}, {8, 8}, {6, 6}, {8, 6}, {8, 7}},
+        // 中局：双方互相封堵
+        {{7, 7}, {7, 8}, {8, 8}, {6, 6}, {8, 6}, {8, 7}, {9, 9}, {6, 8}},
+        // 中局：白棋在左上角形成阵势
+        {{7, 7}, {6, 6}, {8, 8}, {5, 5}, {9, 9}, {10, 10}, {6, 8}, {4, 4}, {8, 6}, {3, 3}},
+        // 中局：黑棋活三，白棋需要应对
+        {{7, 7}, {8, 8}, {7, 8}, {6, 9}, {7, 6}, {7, 5}, {6, 7}, {8, 7}, {5, 8}, {9, 6}},
+        // 中后局：棋子较多的复杂局面
+        {{7, 7}, {8, 7}, {8, 8}, {6, 6}, {9, 9}, {10, 10}, {9, 7}, {9, 8}, {10, 6}, {11, 5},
+            {7, 9}, {6, 10}, {8, 6}, {7, 5}, {6, 8}, {5, 9}},
+        // 边角局面
+        {{2, 2}, {3, 3}, {2, 3}, {2, 4}, {3, 2}, {4, 1}, {4, 2}, {1, 2}, {3, 4}, {5, 2}},
+    };
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int hashMb = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+        // 预热，避免第一组结果包含 JIT 编译时间
+        run(1, Math.max(1, depth - 2), hashMb);
+        run(Math.min(2, maxThreads), Math.max(1, depth - 2), hashMb);
+
+        System.out.println("AI 引擎多线程搜索测试（" + POSITIONS.length + " 个局面，深度 " + depth
+                + "，置换表 " + hashMb + "MB，CPU 核数 " + Runtime.getRuntime().availableProcessors() + "）");
+        System.out.println(String.format("%-6s %10s %14s %14s %8s", "线程", "耗时(ms)", "节点", "节点/秒", "加速比"));
+        double baseMs = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            long[] totals = run(threads, depth, hashMb);
+            double ms = totals[0] / 1e6;
+            long nodes = totals[1];
+            if (threads == 1) {
+                baseMs = ms;
+            }
+            System.out.println(String.format("%-8d %10.0f %14d %14.0f %7.2fx",
+                    threads, ms, nodes, nodes / (ms / 1000), baseMs / ms));
+        }
+    }
+
+    /**
+     * 用指定线程数搜索所有测试局面
+     *
+     * @return {总耗时（纳秒）, 总节点数}
+     */
+    private static long[] run(int threads, int depth, int hashMb) {
+        Engine engine = new Engine(hashMb, threads);
+        long elapsed = 0;
+        long nodes = 0;
+        for (int[][] moves : POSITIONS) {
+            ChessRule board = new ChessRule();
+            int stone = 1;
+            for (int[] move : moves) {
+                board.makeMove(move[0], move[1], stone);
+                stone = 3 - stone;
+            }
+            engine.newGame();
+            long start = System.nanoTime();
+            SearchResult result = engine.search(board, stone, SearchLimits.depth(depth));
+            elapsed += System.nanoTime() - start;
+            nodes += result.getNodes();
+        }
+        engine.shutdown();
+        return new long[] {elapsed, nodes};
+    }
+}
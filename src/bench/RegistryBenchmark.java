@@ -0,0 +1,192 @@
+package bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import server.ClientHandler;
+import server.Connection;
+import server.OutboundMessage;
+import server.Server;
+import server.ServerConfig;
+
+/**
+ * 房间注册表争用基准测试
+ * 在进程内直接驱动 ClientHandler，每个线程循环执行：登录/断开一个临时用户、创建房间、
+ * 另一用户按ID加入、双方退出、关闭房间。
+ *
+ * 每个线程数分别测两种模式：
+ * <ul>
+ * <li>全局锁：每轮操作外加一把所有线程共享的锁，模拟原先 synchronized 的 Server</li>
+ * <li>无全局锁：直接调用当前的注册表实现</li>
+ * </ul>
+ *
+ * 用法：java -cp bin bench.RegistryBenchmark [每轮秒数] [最大线程数]
+ */
+public class RegistryBenchmark {
+
+    /**
+     * 丢弃所有发送的消息
+     */
+    private static final class NullConnection implements Connection {
+        private volatile boolean open = true;
+
+        @Override
+        public int send(OutboundMessage message) {
+            return 0;
+        }
+
+        @Override
+        public void setBinary(boolean binary) {
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public String getRemoteAddress() {
+            return "bench";
+        }
+
+        @Override
+        public int getPendingCount() {
+            return 0;
+        }
+    }
+
+    /**
+     * 不加锁地丢弃输出（PrintStream 自身的锁会成为新的全局争用点）
+     */
+    private static final class NullPrintStream extends PrintStream {
+        NullPrintStream() {
+            super(new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+            });
+        }
+
+        @Override
+        public void println(String x) {
+        }
+
+        @Override
+        public void println(Object x) {
+        }
+
+        @Override
+        public void print(String s) {
+        }
+
+        @Override
+        public void write(byte[] buf, int off, int len) {
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+
+        // 关闭服务器日志（必须在服务器类加载之前设置）
+        System.setProperty("fiveqi.logLevel", "OFF");
+
+        PrintStream console = System.out;
+        System.setOut(new NullPrintStream());
+        System.setErr(new NullPrintStream());
+
+        // 预热，避免第一组结果包含 JIT 编译时间
+        run(1, 1, true);
+        run(1, 1, false);
+
+        console.println("房间注册表争用测试（每轮 " + seconds + " 秒，单位：轮操作/秒）");
+        console.println(String.format("%-6s %14s %14s %8s", "线程", "全局锁", "无全局锁", "提升"));
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            double global = run(threads, seconds, true);
+            double striped = run(threads, seconds, false);
+            console.println(String.format("%-8d %14.0f %14.0f %7.2fx", threads, global, striped, striped / global));
+        }
+        System.exit(0);
+    }
+
+    private static double run(int threads, int seconds, boolean globalLock) throws InterruptedException {
+        Server server = new Server(new ServerConfig(0));
+        ReentrantLock lock = new ReentrantLock();
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder operations = new LongAdder();
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            workers[t] = new Thread(() -> {
+                ClientHandler owner = login(server, "owner-" + id);
+                ClientHandler guest = login(server, "guest-" + id);
+                ready.countDown();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long n = 0;
+                while (!stop.get()) {
+                    if (globalLock) {
+                        lock.lock();
+                        try {
+                            cycle(server, owner, guest, id, n);
+                        } finally {
+                            lock.unlock();
+                        }
+                    } else {
+                        cycle(server, owner, guest, id, n);
+                    }
+                    n++;
+                }
+                operations.add(n);
+            });
+            workers[t].start();
+        }
+
+        ready.await();
+        long begin = System.nanoTime();
+        start.countDown();
+        Thread.sleep(seconds * 1000L);
+        stop.set(true);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+        server.stop();
+        return operations.sum() / elapsed;
+    }
+
+    /**
+     * 一轮操作：临时用户登录并断开、创建房间、加入、退出、关闭房间
+     */
+    private static void cycle(Server server, ClientHandler owner, ClientHandler guest, int id, long n) {
+        ClientHandler visitor = login(server, "visitor-" + id + "-" + n);
+        visitor.disconnect();
+
+        owner.onTextMessage("CREATE_ROOM");
+        String roomId = owner.getGameSession().getRoomId();
+        guest.onTextMessage("JOIN_ROOM_BY_ID|" + roomId);
+        guest.onTextMessage("QUIT");
+        owner.onTextMessage("QUIT");
+        server.removeGameSession(roomId);
+    }
+
+    private static ClientHandler login(Server server, String username) {
+        ClientHandler handler = new ClientHandler(new NullConnection(), server);
+        handler.onTextMessage("LOGIN|" + username);
+        return handler;
+    }
+}
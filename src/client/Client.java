@@ -1,24 +1,45 @@
 package client;
 
+import common.BinaryProtocol;
+import common.BoardSnapshot;
+import common.FrameDecoder;
+import common.MessageParser;
 import common.Protocol;
+import common.RoomListDelta;
 import java.io.*;
 import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 五子棋客户端
  * 负责Socket连接、消息发送/接收
+ * 登录时请求使用二进制协议，服务器确认后收发都改用二进制帧
  */
-public class Client {
+public class Client implements FrameDecoder.Listener {
+
+    // 服务器发过心跳后，超过该时间没有收到任何消息即视为连接已断开（服务器空闲时每 15 秒发送一次 PING）
+    private static final int SERVER_SILENCE_TIMEOUT_MS = 60000;
 
     private String serverHost;
     private int serverPort;
     private Socket socket;
-    private BufferedReader reader;
-    private PrintWriter writer;
+    private InputStream input;
+    private OutputStream output;
     private NetworkHandler handler;
     private Thread receiveThread;
     private volatile boolean connected;
+    private MessageParser parser = new MessageParser(); // 仅接收线程使用
+    private FrameDecoder decoder = new FrameDecoder(BinaryProtocol.MAX_PAYLOAD); // 仅接收线程使用
+    private boolean heartbeatSeen; // 是否收到过服务器心跳，仅接收线程使用
+
+    // 发送状态，由 this 锁保护
+    private boolean binary;
+    private boolean awaitingLogin; // 登录应答到达前暂存后续消息，避免协议切换前后混用编码
+    private final List<String> pendingMessages = new ArrayList<>();
 
     public Client(String serverHost, int serverPort, NetworkHandler handler) {
         this.serverHost = serverHost;
@@ -41,13 +62,8 @@ public class Client {
         try {
             socket = new Socket(serverHost, serverPort);
 
-            // 使用 UTF-8 编码
-            reader = new BufferedReader(
-                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
-            writer = new PrintWriter(
-                    new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8),
-                    true // 自动刷新
-            );
+            input = socket.getInputStream();
+            output = new BufferedOutputStream(socket.getOutputStream());
 
             connected = true;
 
@@ -72,10 +88,6 @@ public class Client {
         connected = false;
 
         try {
-            if (reader != null)
-                reader.close();
-            if (writer != null)
-                writer.close();
             if (socket != null && !socket.isClosed())
                 socket.close();
         } catch (IOException e) {
@@ -88,10 +100,46 @@ public class Client {
     /**
      * 发送消息到服务器
      */
-    public void sendMessage(String message) {
-        if (writer != null && connected) {
-            writer.println(message.trim());
+    public synchronized void sendMessage(String message) {
+        if (output == null || !connected) {
+            return;
+        }
+        if (awaitingLogin) {
+            pendingMessages.add(message);
+            return;
+        }
+        write(message);
+    }
+
+    /**
+     * 按当前协议编码并写出一条消息（调用方持有 this 锁）
+     */
+    private void write(String message) {
+        try {
+            if (binary) {
+                output.write(BinaryProtocol.encode(message.trim()));
+            } else {
+                output.write((message.trim() + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            output.flush();
+        } catch (IOException e) {
+            System.err.println("发送消息失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 登录应答到达：按服务器确认结果切换协议，再发出暂存的消息
+     */
+    private synchronized void onLoginReply(boolean useBinary) {
+        if (useBinary) {
+            binary = true;
+            decoder.setBinary(true);
+        }
+        awaitingLogin = false;
+        for (String message : pendingMessages) {
+            write(message);
         }
+        pendingMessages.clear();
     }
 
     /**
@@ -99,9 +147,18 @@ public class Client {
      */
     private void receiveMessages() {
         try {
-            String message;
-            while (connected && (message = reader.readLine()) != null) {
-                handleMessage(message);
+            byte[] buffer = new byte[4096];
+            int length;
+            while (connected && (length = input.read(buffer)) >= 0) {
+                decoder.feed(buffer, 0, length, this);
+            }
+        } catch (SocketTimeoutException e) {
+            // 服务器已启用心跳却长时间没有任何消息：连接已失效（对端宕机或网络中断）
+            System.err.println("服务器长时间无响应，断开连接");
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // 连接已失效，关闭失败无需处理
             }
         } catch (IOException e) {
             if (connected) {
@@ -115,171 +172,228 @@ public class Client {
         }
     }
 
+    @Override
+    public void onTextMessage(String message) {
+        handleMessage(message);
+    }
+
     /**
-     * 处理服务器消息
+     * 处理二进制帧：按操作码直接分派，负载字段由解析器在字节上读取，不还原为文本；落子广播直接解码坐标
      */
-    private void handleMessage(String message) {
+    @Override
+    public void onBinaryFrame(int opcode, byte[] payload, int length) {
         if (handler == null) {
             return;
         }
+        if (opcode == BinaryProtocol.OP_MOVE_SUCCESS && length >= 2) {
+            int cell = payload[0] & 0xFF;
+            String username = new String(payload, 2, length - 2, StandardCharsets.UTF_8);
+            try {
+                handler.onMoveSuccess(BinaryProtocol.cellX(cell), BinaryProtocol.cellY(cell),
+                        BinaryProtocol.moveColor(payload, 0), username);
+            } catch (Exception e) {
+                System.err.println("处理消息异常: " + e.getMessage());
+                e.printStackTrace();
+            }
+            return;
+        }
+        String command = BinaryProtocol.commandOf(opcode);
+        if (command == null) {
+            System.err.println("未知操作码: " + opcode);
+            return;
+        }
+        MessageParser parts = parser.reset(payload, 0, length);
+        dispatch(opcode, command, parts, parts.fieldCount());
+    }
 
-        String[] parts = Protocol.parseMessage(message);
-        if (parts.length == 0) {
+    /**
+     * 处理服务器文本消息
+     */
+    private void handleMessage(String message) {
+        if (handler == null) {
             return;
         }
 
-        String command = parts[0];
+        MessageParser parts = parser.reset(message);
+        int fieldCount = parts.fieldCount();
+        String command = parts.nextCommand(Protocol.SERVER_COMMANDS);
+        if (command == null) {
+            return;
+        }
+        dispatch(BinaryProtocol.opcodeOf(command), command, parts, fieldCount);
+    }
 
+    /**
+     * 按操作码分派服务器消息（文本和二进制共用）
+     *
+     * @param parts 指令名之后的字段
+     * @param fieldCount 字段总数（含指令名）
+     */
+    private void dispatch(int opcode, String command, MessageParser parts, int fieldCount) {
         try {
-            switch (command) {
-                case Protocol.LOGIN_SUCCESS:
-                    if (parts.length >= 2) {
-                        handler.onLoginSuccess(parts[1]);
+            switch (opcode) {
+                case BinaryProtocol.OP_LOGIN_SUCCESS:
+                    if (fieldCount >= 2) {
+                        String username = parts.nextString();
+                        boolean useBinary = false;
+                        while (parts.hasMore()) {
+                            if (Protocol.BINARY_V1.equals(parts.nextString())) {
+                                useBinary = true;
+                            }
+                        }
+                        onLoginReply(useBinary);
+                        handler.onLoginSuccess(username);
                     }
                     break;
 
-                case Protocol.LOGIN_FAIL:
-                    if (parts.length >= 2) {
-                        handler.onLoginFail(parts[1]);
+                case BinaryProtocol.OP_LOGIN_FAIL:
+                    onLoginReply(false);
+                    if (fieldCount >= 2) {
+                        handler.onLoginFail(parts.nextString());
                     }
                     break;
 
-                case Protocol.WAITING:
+                case BinaryProtocol.OP_WAITING:
                     handler.onWaiting();
                     break;
 
-                case Protocol.GAME_START:
-                    if (parts.length >= 4) {
-                        handler.onGameStart(parts[1], parts[2], parts[3]);
+                case BinaryProtocol.OP_GAME_START:
+                    if (fieldCount >= 4) {
+                        handler.onGameStart(parts.nextString(), parts.nextString(), parts.nextString());
                     }
                     break;
 
-                case Protocol.JOIN_ROOM:
-                    if (parts.length >= 4) {
-                        handler.onJoinRoom(parts[1], parts[2], parts[3]);
+                case BinaryProtocol.OP_JOIN_ROOM:
+                    if (fieldCount >= 4) {
+                        handler.onJoinRoom(parts.nextString(), parts.nextString(), parts.nextString());
                     }
                     break;
 
-                case Protocol.MOVE_SUCCESS:
-                    if (parts.length >= 5) {
-                        int x = Integer.parseInt(parts[1]);
-                        int y = Integer.parseInt(parts[2]);
-                        handler.onMoveSuccess(x, y, parts[3], parts[4]);
+                case BinaryProtocol.OP_MOVE_SUCCESS:
+                    if (fieldCount >= 5) {
+                        int x = parts.nextInt();
+                        int y = parts.nextInt();
+                        handler.onMoveSuccess(x, y, parts.nextString(), parts.nextString());
                     }
                     break;
 
-                case Protocol.MOVE_FAIL:
-                    if (parts.length >= 2) {
-                        handler.onMoveFail(parts[1]);
+                case BinaryProtocol.OP_MOVE_FAIL:
+                    if (fieldCount >= 2) {
+                        handler.onMoveFail(parts.nextString());
                     }
                     break;
 
-                case Protocol.GAME_OVER:
-                    if (parts.length >= 3) {
-                        handler.onGameOver(parts[1], parts[2]);
+                case BinaryProtocol.OP_GAME_OVER:
+                    if (fieldCount >= 3) {
+                        handler.onGameOver(parts.nextString(), parts.nextString());
                     }
                     break;
 
-                case Protocol.CHAT_MSG:
-                    if (parts.length >= 4) {
-                        // 重新组合消息内容（可能包含分隔符）
-                        StringBuilder msgBuilder = new StringBuilder();
-                        for (int i = 3; i < parts.length; i++) {
-                            if (i > 3) {
-                                msgBuilder.append(Protocol.DELIMITER);
-                            }
-                            msgBuilder.append(parts[i]);
-                        }
-                        handler.onChatMessage(parts[1], parts[2], msgBuilder.toString());
+                case BinaryProtocol.OP_CHAT_MSG:
+                    if (fieldCount >= 4) {
+                        String sender = parts.nextString();
+                        String timestamp = parts.nextString();
+                        // 消息内容取剩余的全部原始文本（可能包含分隔符）
+                        handler.onChatMessage(sender, timestamp, parts.remainder());
                     }
                     break;
 
-                case Protocol.ROLE_CHANGE:
-                    if (parts.length >= 3) {
-                        handler.onRoleChange(parts[1], parts[2]);
+                case BinaryProtocol.OP_ROLE_CHANGE:
+                    if (fieldCount >= 3) {
+                        handler.onRoleChange(parts.nextString(), parts.nextString());
                     }
                     break;
 
-                case Protocol.TAKEOVER_ASK:
-                    if (parts.length >= 2) {
-                        handler.onTakeoverAsk(parts[1]);
+                case BinaryProtocol.OP_TAKEOVER_ASK:
+                    if (fieldCount >= 2) {
+                        handler.onTakeoverAsk(parts.nextString());
                     }
                     break;
 
-                case Protocol.TAKEOVER_RESULT:
-                    if (parts.length >= 3) {
-                        boolean success = parts[1].equals("成功");
-                        handler.onTakeoverResult(success, parts[2]);
+                case BinaryProtocol.OP_TAKEOVER_RESULT:
+                    if (fieldCount >= 3) {
+                        boolean success = parts.nextString().equals("成功");
+                        handler.onTakeoverResult(success, parts.nextString());
                     }
                     break;
 
-                case Protocol.SYSTEM:
-                    if (parts.length >= 2) {
-                        handler.onSystemMessage(parts[1]);
+                case BinaryProtocol.OP_SYSTEM:
+                    if (fieldCount >= 2) {
+                        handler.onSystemMessage(parts.nextString());
                     }
                     break;
 
-                case Protocol.ERROR:
-                    if (parts.length >= 2) {
-                        handler.onError(parts[1]);
+                case BinaryProtocol.OP_ERROR:
+                    if (fieldCount >= 2) {
+                        handler.onError(parts.nextString());
                     }
                     break;
 
-                case Protocol.ROOM_CREATED:
-                    if (parts.length >= 2) {
-                        handler.onRoomCreated(parts[1]);
+                case BinaryProtocol.OP_ROOM_CREATED:
+                    if (fieldCount >= 2) {
+                        handler.onRoomCreated(parts.nextString());
                     }
                     break;
 
-                case Protocol.ROOM_LIST:
-                    if (parts.length >= 2) {
-                        // 重新组合房间列表数据（从parts[1]开始的所有部分）
-                        StringBuilder roomListBuilder = new StringBuilder();
-                        for (int i = 1; i < parts.length; i++) {
-                            if (i > 1) {
-                                roomListBuilder.append(Protocol.DELIMITER);
-                            }
-                            roomListBuilder.append(parts[i]);
-                        }
-                        handler.onRoomListUpdate(roomListBuilder.toString());
+                case BinaryProtocol.OP_ROOM_LIST:
+                    if (fieldCount >= 2) {
+                        // 房间列表数据为指令之后的全部内容
+                        handler.onRoomListUpdate(parts.remainder());
                     }
                     break;
 
-                case Protocol.WAITING_FOR_OPPONENT:
-                    if (parts.length >= 2) {
-                        handler.onWaitingForOpponent(parts[1]);
+                case BinaryProtocol.OP_ROOM_LIST_DELTA:
+                    handler.onRoomListDelta(RoomListDelta.parse(parts));
+                    break;
+
+                case BinaryProtocol.OP_WAITING_FOR_OPPONENT:
+                    if (fieldCount >= 2) {
+                        handler.onWaitingForOpponent(parts.nextString());
                     }
                     break;
 
-                case Protocol.SEAT_UPDATE:
-                    if (parts.length >= 4) {
+                case BinaryProtocol.OP_SEAT_UPDATE:
+                    if (fieldCount >= 4) {
+                        String blackSeat = parts.nextString();
+                        String whiteSeat = parts.nextString();
                         try {
-                            int spectatorCount = Integer.parseInt(parts[3]);
-                            handler.onSeatUpdate(parts[1], parts[2], spectatorCount);
+                            int spectatorCount = parts.nextInt();
+                            handler.onSeatUpdate(blackSeat, whiteSeat, spectatorCount);
                         } catch (NumberFormatException e) {
-                            System.err.println("解析SEAT_UPDATE观战者数量失败: " + parts[3]);
-                            System.err.println("完整消息: " + message);
+                            System.err.println("解析SEAT_UPDATE观战者数量失败: " + e.getMessage());
+                            System.err.println("完整消息: " + parts);
                         }
                     } else {
-                        System.err.println("SEAT_UPDATE消息格式错误，parts长度: " + parts.length);
-                        System.err.println("完整消息: " + message);
+                        System.err.println("SEAT_UPDATE消息格式错误，字段数: " + fieldCount);
+                        System.err.println("完整消息: " + parts);
                     }
                     break;
 
-                case Protocol.BATTLE_INVITE_NOTIFY:
-                    if (parts.length >= 2) {
-                        handler.onBattleInviteNotify(parts[1]);
+                case BinaryProtocol.OP_BATTLE_INVITE_NOTIFY:
+                    if (fieldCount >= 2) {
+                        handler.onBattleInviteNotify(parts.nextString());
                     }
                     break;
 
-                case Protocol.BATTLE_START:
+                case BinaryProtocol.OP_BATTLE_START:
                     handler.onBattleStart();
                     break;
 
-                case Protocol.BOARD_RESET:
+                case BinaryProtocol.OP_BOARD_RESET:
                     handler.onBoardReset();
                     break;
 
+                case BinaryProtocol.OP_BOARD_SNAPSHOT:
+                    handler.onBoardSnapshot(BoardSnapshot.parse(parts));
+                    break;
+
+                case BinaryProtocol.OP_PING:
+                    onPing();
+                    break;
+
+                case BinaryProtocol.OP_PONG:
+                    break;
+
                 default:
                     System.err.println("未知消息类型: " + command);
             }
@@ -289,13 +403,32 @@ public class Client {
         }
     }
 
+    /**
+     * 收到服务器心跳：回复 PONG
+     * 第一次收到时开启读超时，之后服务器长时间无消息即可发现连接已失效（旧版服务器不发心跳，不开启）
+     */
+    private void onPing() {
+        if (!heartbeatSeen) {
+            heartbeatSeen = true;
+            try {
+                socket.setSoTimeout(SERVER_SILENCE_TIMEOUT_MS);
+            } catch (SocketException e) {
+                System.err.println("设置读超时失败: " + e.getMessage());
+            }
+        }
+        sendMessage(Protocol.buildMessage(Protocol.PONG));
+    }
+
     // ==================== 发送指令的便捷方法 ====================
 
     /**
      * 发送登录请求
      */
-    public void login(String username) {
-        sendMessage(Protocol.buildMessage(Protocol.LOGIN, username));
+    public synchronized void login(String username) {
+        sendMessage(Protocol.buildMessage(Protocol.LOGIN, username, Protocol.BINARY_V1, Protocol.HEARTBEAT_V1));
+        if (output != null && connected && !binary) {
+            awaitingLogin = true;
+        }
     }
 
     /**
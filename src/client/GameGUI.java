@@ -1,6 +1,8 @@
 package client;
 
+import common.BoardSnapshot;
 import common.Protocol;
+import common.RoomListDelta;
 import javax.swing.*;
 import javax.swing.text.*;
 import java.awt.*;
@@ -858,6 +860,21 @@ public class GameGUI extends JFrame implements NetworkHandler {
         });
     }
 
+    @Override
+    public void onBoardSnapshot(BoardSnapshot snapshot) {
+        System.out.println("DEBUG GameGUI.onBoardSnapshot: 序号 " + snapshot.getSequence()
+                + "，共 " + snapshot.getMoveCount() + " 手");
+
+        // 与 onMoveSuccess 一样在接收线程直接更新棋盘，保证与后续落子消息的先后顺序
+        board = snapshot.getBoard();
+        previewStone = null;
+
+        SwingUtilities.invokeLater(() -> boardPanel.repaint());
+
+        String sideText = snapshot.getSideToMove().equals(Protocol.BLACK) ? "黑棋" : "白棋";
+        addSystemMessage("已同步棋盘：共 " + snapshot.getMoveCount() + " 手，轮到" + sideText);
+    }
+
     @Override
     public void onChatMessage(String sender, String timestamp, String message) {
         addChatMessage(sender, timestamp, message);
@@ -959,6 +976,11 @@ public class GameGUI extends JFrame implements NetworkHandler {
         // 房间列表更新，GameGUI不处理此消息（由RoomLobbyGUI处理）
     }
 
+    @Override
+    public void onRoomListDelta(RoomListDelta delta) {
+        // 房间列表增量，GameGUI不处理此消息（由RoomLobbyGUI处理）
+    }
+
     @Override
     public void onWaitingForOpponent(String roomId) {
         // 等待对手，GameGUI不处理此消息（由RoomLobbyGUI处理）
@@ -974,6 +996,13 @@ public class GameGUI extends JFrame implements NetworkHandler {
             playerRoles.put(whiteSeat, Protocol.PLAYER_WHITE);
         }
 
+        // 快速加入时服务器直接安排入座，ROLE_CHANGE 可能在本界面创建前已由大厅收到
+        if (blackSeat.equals(myUsername)) {
+            myRole = Protocol.PLAYER_BLACK;
+        } else if (whiteSeat.equals(myUsername)) {
+            myRole = Protocol.PLAYER_WHITE;
+        }
+
         // 添加调试日志
         System.out.println(
                 "DEBUG GameGUI.onSeatUpdate:黑棋=" + blackSeat + ", 白棋=" + whiteSeat + ", 观战=" + spectatorCount);
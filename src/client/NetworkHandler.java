@@ -1,6 +1,8 @@
 package client;
 
+import common.BoardSnapshot;
 import common.Protocol;
+import common.RoomListDelta;
 
 /**
  * 网络消息处理器接口
@@ -129,6 +131,13 @@ public interface NetworkHandler {
      */
     void onRoomListUpdate(String roomListText);
 
+    /**
+     * 房间列表增量更新
+     *
+     * @param delta 自上次同步版本以来的变化（或完整列表）
+     */
+    void onRoomListDelta(RoomListDelta delta);
+
     /**
      * 等待对手加入房间
      * 
@@ -162,5 +171,12 @@ public interface NetworkHandler {
      */
     void onBoardReset();
 
+    /**
+     * 棋盘快照（中途加入房间时一次性同步整个棋盘）
+     *
+     * @param snapshot 快照内容
+     */
+    void onBoardSnapshot(BoardSnapshot snapshot);
+
     void onDisconnected();
 }
@@ -1,9 +1,16 @@
 package client;
 
+import common.BoardSnapshot;
 import common.Protocol;
+import common.RoomListDelta;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * 房间大厅界面 - 可视化列表版本
@@ -27,7 +34,11 @@ public class RoomLobbyGUI extends JFrame implements NetworkHandler {
     private JButton logoutButton;
     private JPanel roomListPanel; // 房间列表容器
     private JScrollPane scrollPane;
-    private Timer autoRefreshTimer; // 自动刷新定时器
+    private volatile boolean lobbySubscribed; // 是否已订阅大厅推送
+
+    // 本地房间列表，按房间ID排序（仅在 EDT 上访问）
+    private final Map<String, RoomListDelta.Entry> rooms = new TreeMap<>();
+    private volatile long roomListVersion; // 已同步到的房间目录版本，0 表示尚未同步
 
     // 统一配色方案 - 使用Theme类
     // private static final Color PRIMARY_COLOR = new Color(52, 73, 94); // Removed
@@ -44,8 +55,7 @@ public class RoomLobbyGUI extends JFrame implements NetworkHandler {
         }
 
         initComponents();
-        requestRoomList();
-        startAutoRefresh();
+        subscribeLobby();
     }
 
     /**
@@ -155,7 +165,6 @@ public class RoomLobbyGUI extends JFrame implements NetworkHandler {
         addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
-                stopAutoRefresh();
                 logout();
             }
         });
@@ -267,21 +276,23 @@ public class RoomLobbyGUI extends JFrame implements NetworkHandler {
     }
 
     /**
-     * 启动自动刷新
+     * 订阅大厅：服务器先回复当前列表，之后有变化时主动推送增量，不再定时轮询
      */
-    private void startAutoRefresh() {
-        // 每5秒自动刷新一次
-        autoRefreshTimer = new Timer(5000, e -> requestRoomList());
-        autoRefreshTimer.start();
+    private void subscribeLobby() {
+        if (client != null && client.isConnected()) {
+            client.sendMessage(Protocol.buildMessage(Protocol.LOBBY_SUBSCRIBE, String.valueOf(roomListVersion)));
+            lobbySubscribed = true;
+        }
     }
 
     /**
-     * 停止自动刷新
+     * 取消订阅大厅
      */
-    private void stopAutoRefresh() {
-        if (autoRefreshTimer != null) {
-            autoRefreshTimer.stop();
+    private void unsubscribeLobby() {
+        if (lobbySubscribed && client != null && client.isConnected()) {
+            client.sendMessage(Protocol.buildMessage(Protocol.LOBBY_UNSUBSCRIBE));
         }
+        lobbySubscribed = false;
     }
 
     /**
@@ -322,83 +333,117 @@ public class RoomLobbyGUI extends JFrame implements NetworkHandler {
     }
 
     /**
-     * 请求房间列表
+     * 请求房间列表（带上本地版本号，服务器只回复变化的房间）
      */
     private void requestRoomList() {
         if (client != null && client.isConnected()) {
-            client.sendMessage(Protocol.buildMessage(Protocol.GET_ROOM_LIST));
+            client.sendMessage(Protocol.buildMessage(Protocol.GET_ROOM_LIST, String.valueOf(roomListVersion)));
         }
     }
 
     /**
-     * 更新房间列表显示
+     * 更新房间列表显示（旧版完整列表格式）
      */
     public void updateRoomList(String roomListText) {
         SwingUtilities.invokeLater(() -> {
             System.out.println("DEBUG: 收到房间列表数据: " + roomListText);
 
-            // 清空现有列表
-            roomListPanel.removeAll();
-
             if (roomListText == null || roomListText.trim().isEmpty() || roomListText.equals("0")) {
-                // 没有房间
-                statsLabel.setText("房间总数: 0 | 暂无活跃房间");
-
-                JLabel emptyLabel = new JLabel("当前没有活跃的房间", SwingConstants.CENTER);
-                emptyLabel.setFont(new Font("微软雅黑", Font.PLAIN, 14));
-                emptyLabel.setForeground(new Color(150, 150, 150));
-                emptyLabel.setBorder(BorderFactory.createEmptyBorder(30, 20, 30, 20));
-                roomListPanel.add(emptyLabel);
-
-                JLabel tipLabel = new JLabel("点击\"创建房间\"开始新游戏！", SwingConstants.CENTER);
-                tipLabel.setFont(new Font("微软雅黑", Font.PLAIN, 13));
-                tipLabel.setForeground(new Color(120, 120, 120));
-                roomListPanel.add(tipLabel);
-            } else {
-                // 解析房间列表 - 服务器格式: "count|roomID|status|count人|roomID|status|count人..."
-                String[] parts = roomListText.split("\\|");
-                System.out.println("DEBUG: 分割后parts长度: " + parts.length);
-
-                if (parts.length > 0) {
-                    try {
-                        int roomCount = Integer.parseInt(parts[0].trim());
-                        statsLabel.setText(String.format("房间总数: %d | 自动刷新中...", roomCount));
-                        System.out.println("DEBUG: 房间数量: " + roomCount);
-
-                        // 从索引1开始，每3个元素是一个房间：roomID, status, count人
-                        for (int i = 1; i + 2 < parts.length; i += 3) {
-                            String roomId = parts[i].trim();
-                            String status = parts[i + 1].trim();
-                            String countStr = parts[i + 2].replaceAll("[^0-9]", "");
-
-                            if (!countStr.isEmpty()) {
-                                int memberCount = Integer.parseInt(countStr);
-                                System.out.println("DEBUG: 添加房间: " + roomId + ", " + status + ", " + memberCount);
-
-                                JPanel roomPanel = createRoomPanel(roomId, status, memberCount);
-                                roomListPanel.add(roomPanel);
-                            }
-                        }
-
-                    } catch (Exception e) {
-                        System.err.println("解析房间列表失败: " + e.getMessage());
-                        e.printStackTrace();
-                        statsLabel.setText("房间总数: ? | 数据解析错误");
-
-                        JLabel errorLabel = new JLabel("解析错误: " + e.getMessage(), SwingConstants.CENTER);
-                        errorLabel.setFont(new Font("微软雅黑", Font.PLAIN, 12));
-                        errorLabel.setForeground(Color.RED);
-                        roomListPanel.add(errorLabel);
+                renderRoomList(new ArrayList<>());
+                return;
+            }
+
+            // 解析房间列表 - 服务器格式: "count|roomID|status|count人|roomID|status|count人..."
+            String[] parts = roomListText.split("\\|");
+            System.out.println("DEBUG: 分割后parts长度: " + parts.length);
+
+            try {
+                Integer.parseInt(parts[0].trim());
+
+                // 从索引1开始，每3个元素是一个房间：roomID, status, count人
+                List<RoomListDelta.Entry> entries = new ArrayList<>();
+                for (int i = 1; i + 2 < parts.length; i += 3) {
+                    String countStr = parts[i + 2].replaceAll("[^0-9]", "");
+                    if (!countStr.isEmpty()) {
+                        entries.add(new RoomListDelta.Entry(parts[i].trim(), parts[i + 1].trim(),
+                                Integer.parseInt(countStr)));
                     }
                 }
+                renderRoomList(entries);
+
+            } catch (Exception e) {
+                System.err.println("解析房间列表失败: " + e.getMessage());
+                e.printStackTrace();
+                roomListPanel.removeAll();
+                statsLabel.setText("房间总数: ? | 数据解析错误");
+
+                JLabel errorLabel = new JLabel("解析错误: " + e.getMessage(), SwingConstants.CENTER);
+                errorLabel.setFont(new Font("微软雅黑", Font.PLAIN, 12));
+                errorLabel.setForeground(Color.RED);
+                roomListPanel.add(errorLabel);
+                roomListPanel.revalidate();
+                roomListPanel.repaint();
             }
-
-            // 刷新显示
-            roomListPanel.revalidate();
-            roomListPanel.repaint();
         });
     }
 
+    /**
+     * 应用房间列表增量，只有房间有变化时才重建列表显示
+     */
+    private void applyRoomListDelta(RoomListDelta delta) {
+        if (delta.isFull()) {
+            rooms.clear();
+        }
+        for (RoomListDelta.Entry entry : delta.getEntries()) {
+            if (entry.isRemoved()) {
+                rooms.remove(entry.getRoomId());
+            } else {
+                rooms.put(entry.getRoomId(), entry);
+            }
+        }
+        roomListVersion = delta.getVersion();
+
+        if (delta.isFull() || !delta.getEntries().isEmpty()) {
+            renderRoomList(rooms.values());
+        }
+    }
+
+    /**
+     * 重建房间列表显示（在 EDT 上调用）
+     */
+    private void renderRoomList(Collection<RoomListDelta.Entry> entries) {
+        // 清空现有列表
+        roomListPanel.removeAll();
+
+        if (entries.isEmpty()) {
+            // 没有房间
+            statsLabel.setText("房间总数: 0 | 暂无活跃房间");
+
+            JLabel emptyLabel = new JLabel("当前没有活跃的房间", SwingConstants.CENTER);
+            emptyLabel.setFont(new Font("微软雅黑", Font.PLAIN, 14));
+            emptyLabel.setForeground(new Color(150, 150, 150));
+            emptyLabel.setBorder(BorderFactory.createEmptyBorder(30, 20, 30, 20));
+            roomListPanel.add(emptyLabel);
+
+            JLabel tipLabel = new JLabel("点击\"创建房间\"开始新游戏！", SwingConstants.CENTER);
+            tipLabel.setFont(new Font("微软雅黑", Font.PLAIN, 13));
+            tipLabel.setForeground(new Color(120, 120, 120));
+            roomListPanel.add(tipLabel);
+        } else {
+            statsLabel.setText(String.format("房间总数: %d | 实时更新中...", entries.size()));
+            System.out.println("DEBUG: 房间数量: " + entries.size());
+
+            for (RoomListDelta.Entry entry : entries) {
+                JPanel roomPanel = createRoomPanel(entry.getRoomId(), entry.getStatus(), entry.getMemberCount());
+                roomListPanel.add(roomPanel);
+            }
+        }
+
+        // 刷新显示
+        roomListPanel.revalidate();
+        roomListPanel.repaint();
+    }
+
     /**
      * 显示消息
      */
@@ -413,7 +458,7 @@ public class RoomLobbyGUI extends JFrame implements NetworkHandler {
      */
     public void closeLobby() {
         SwingUtilities.invokeLater(() -> {
-            stopAutoRefresh();
+            unsubscribeLobby();
             dispose();
         });
     }
@@ -437,7 +482,7 @@ public class RoomLobbyGUI extends JFrame implements NetworkHandler {
                 CustomDialog.YES_NO_OPTION);
 
         if (result == CustomDialog.YES_OPTION) {
-            stopAutoRefresh();
+            unsubscribeLobby();
             // 先关闭窗口，避免接收后续的服务器消息
             dispose();
             // 断开连接
@@ -539,7 +584,7 @@ public class RoomLobbyGUI extends JFrame implements NetworkHandler {
 
     @Override
     public void onDisconnected() {
-        stopAutoRefresh();
+        lobbySubscribed = false;
         showMessage("与服务器断开连接", "提示", JOptionPane.WARNING_MESSAGE);
         SwingUtilities.invokeLater(() -> {
             dispose();
@@ -565,6 +610,11 @@ public class RoomLobbyGUI extends JFrame implements NetworkHandler {
         updateRoomList(roomListText);
     }
 
+    @Override
+    public void onRoomListDelta(RoomListDelta delta) {
+        SwingUtilities.invokeLater(() -> applyRoomListDelta(delta));
+    }
+
     @Override
     public void onWaitingForOpponent(String roomId) {
         waitingForOpponent(roomId);
@@ -602,4 +652,9 @@ public class RoomLobbyGUI extends JFrame implements NetworkHandler {
     public void onBoardReset() {
         // 大厅不处理棋盘重置
     }
+
+    @Override
+    public void onBoardSnapshot(BoardSnapshot snapshot) {
+        // 大厅不处理棋盘快照
+    }
 }
\ No newline at end of file
@@ -0,0 +1,287 @@
+package common;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 紧凑二进制协议
+ * 登录时协商启用（LOGIN|用户名|BIN1 → LOGIN_SUCCESS|用户名|BIN1），之后双方改用二进制帧：
+ *
+ * <pre>
+ * 帧格式：操作码(1字节) | 负载长度(varint) | 负载
+ * </pre>
+ *
+ * 大多数指令的负载就是文本协议中指令名之后的部分（UTF-8），
+ * 落子相关指令使用紧凑编码：
+ * <ul>
+ * <li>MOVE：1 字节格子编号（x * 15 + y）</li>
+ * <li>MOVE_SUCCESS：1 字节格子编号 + 1 字节标志（最低位为颜色，0 黑 1 白）+ 落子者用户名，只有这一种编码</li>
+ * </ul>
+ * 坐标非法的 MOVE 退回文本负载（至少 3 字节，与 1 字节的紧凑编码可以区分）；
+ * MOVE_SUCCESS 只由服务器在落子成功后生成，坐标和颜色必然合法，不提供文本负载形式。
+ */
+public class BinaryProtocol {
+
+    /** 单帧最大负载长度 */
+    public static final int MAX_PAYLOAD = 64 * 1024;
+
+    /*
+     * 操作码表（0 保留）：编译期常量，可直接用于 switch 分派
+     * 只能在末尾追加，不能调整已有编号
+     */
+    // 客户端 -> 服务器
+    public static final int OP_LOGIN = 1;
+    public static final int OP_MOVE = 2;
+    public static final int OP_CHAT = 3;
+    public static final int OP_REST_REQUEST = 4;
+    public static final int OP_TAKEOVER_REQUEST = 5;
+    public static final int OP_TAKEOVER_RESPONSE = 6;
+    public static final int OP_QUIT = 7;
+    public static final int OP_READY_FOR_NEXT = 8;
+    public static final int OP_SPECTATE = 9;
+    public static final int OP_CREATE_ROOM = 10;
+    public static final int OP_QUICK_JOIN = 11;
+    public static final int OP_JOIN_ROOM_BY_ID = 12;
+    public static final int OP_GET_ROOM_LIST = 13;
+    public static final int OP_REQUEST_ROOM_STATE = 14;
+    public static final int OP_SIT_BLACK = 15;
+    public static final int OP_SIT_WHITE = 16;
+    public static final int OP_SIT_SPECTATOR = 17;
+    public static final int OP_BATTLE_INVITE = 18;
+    public static final int OP_BATTLE_RESPONSE = 19;
+    // 服务器 -> 客户端
+    public static final int OP_LOGIN_SUCCESS = 20;
+    public static final int OP_LOGIN_FAIL = 21;
+    public static final int OP_WAITING = 22;
+    public static final int OP_GAME_START = 23;
+    public static final int OP_JOIN_ROOM = 24;
+    public static final int OP_MOVE_SUCCESS = 25;
+    public static final int OP_MOVE_FAIL = 26;
+    public static final int OP_GAME_OVER = 27;
+    public static final int OP_CHAT_MSG = 28;
+    public static final int OP_ROLE_CHANGE = 29;
+    public static final int OP_TAKEOVER_ASK = 30;
+    public static final int OP_TAKEOVER_RESULT = 31;
+    public static final int OP_ERROR = 32;
+    public static final int OP_SYSTEM = 33;
+    public static final int OP_ROOM_CREATED = 34;
+    public static final int OP_ROOM_LIST = 35;
+    public static final int OP_WAITING_FOR_OPPONENT = 36;
+    public static final int OP_SEAT_UPDATE = 37;
+    public static final int OP_BATTLE_INVITE_NOTIFY = 38;
+    public static final int OP_BATTLE_START = 39;
+    public static final int OP_BOARD_RESET = 40;
+    // 新增指令
+    public static final int OP_BOARD_SNAPSHOT = 41;
+    public static final int OP_ROOM_LIST_DELTA = 42;
+    public static final int OP_LOBBY_SUBSCRIBE = 43;
+    public static final int OP_LOBBY_UNSUBSCRIBE = 44;
+    public static final int OP_PING = 45;
+    public static final int OP_PONG = 46;
+
+    /** 下标即操作码 */
+    private static final String[] COMMANDS = new String[OP_PONG + 1];
+
+    private static final Map<String, Integer> OPCODES = new HashMap<>();
+
+    static {
+        register(OP_LOGIN, Protocol.LOGIN);
+        register(OP_MOVE, Protocol.MOVE);
+        register(OP_CHAT, Protocol.CHAT);
+        register(OP_REST_REQUEST, Protocol.REST_REQUEST);
+        register(OP_TAKEOVER_REQUEST, Protocol.TAKEOVER_REQUEST);
+        register(OP_TAKEOVER_RESPONSE, Protocol.TAKEOVER_RESPONSE);
+        register(OP_QUIT, Protocol.QUIT);
+        register(OP_READY_FOR_NEXT, Protocol.READY_FOR_NEXT);
+        register(OP_SPECTATE, Protocol.SPECTATE);
+        register(OP_CREATE_ROOM, Protocol.CREATE_ROOM);
+        register(OP_QUICK_JOIN, Protocol.QUICK_JOIN);
+        register(OP_JOIN_ROOM_BY_ID, Protocol.JOIN_ROOM_BY_ID);
+        register(OP_GET_ROOM_LIST, Protocol.GET_ROOM_LIST);
+        register(OP_REQUEST_ROOM_STATE, Protocol.REQUEST_ROOM_STATE);
+        register(OP_SIT_BLACK, Protocol.SIT_BLACK);
+        register(OP_SIT_WHITE, Protocol.SIT_WHITE);
+        register(OP_SIT_SPECTATOR, Protocol.SIT_SPECTATOR);
+        register(OP_BATTLE_INVITE, Protocol.BATTLE_INVITE);
+        register(OP_BATTLE_RESPONSE, Protocol.BATTLE_RESPONSE);
+        register(OP_LOGIN_SUCCESS, Protocol.LOGIN_SUCCESS);
+        register(OP_LOGIN_FAIL, Protocol.LOGIN_FAIL);
+        register(OP_WAITING, Protocol.WAITING);
+        register(OP_GAME_START, Protocol.GAME_START);
+        register(OP_JOIN_ROOM, Protocol.JOIN_ROOM);
+        register(OP_MOVE_SUCCESS, Protocol.MOVE_SUCCESS);
+        register(OP_MOVE_FAIL, Protocol.MOVE_FAIL);
+        register(OP_GAME_OVER, Protocol.GAME_OVER);
+        register(OP_CHAT_MSG, Protocol.CHAT_MSG);
+        register(OP_ROLE_CHANGE, Protocol.ROLE_CHANGE);
+        register(OP_TAKEOVER_ASK, Protocol.TAKEOVER_ASK);
+        register(OP_TAKEOVER_RESULT, Protocol.TAKEOVER_RESULT);
+        register(OP_ERROR, Protocol.ERROR);
+        register(OP_SYSTEM, Protocol.SYSTEM);
+        register(OP_ROOM_CREATED, Protocol.ROOM_CREATED);
+        register(OP_ROOM_LIST, Protocol.ROOM_LIST);
+        register(OP_WAITING_FOR_OPPONENT, Protocol.WAITING_FOR_OPPONENT);
+        register(OP_SEAT_UPDATE, Protocol.SEAT_UPDATE);
+        register(OP_BATTLE_INVITE_NOTIFY, Protocol.BATTLE_INVITE_NOTIFY);
+        register(OP_BATTLE_START, Protocol.BATTLE_START);
+        register(OP_BOARD_RESET, Protocol.BOARD_RESET);
+        register(OP_BOARD_SNAPSHOT, Protocol.BOARD_SNAPSHOT);
+        register(OP_ROOM_LIST_DELTA, Protocol.ROOM_LIST_DELTA);
+        register(OP_LOBBY_SUBSCRIBE, Protocol.LOBBY_SUBSCRIBE);
+        register(OP_LOBBY_UNSUBSCRIBE, Protocol.LOBBY_UNSUBSCRIBE);
+        register(OP_PING, Protocol.PING);
+        register(OP_PONG, Protocol.PONG);
+        for (int i = 1; i < COMMANDS.length; i++) {
+            OPCODES.put(COMMANDS[i], i);
+        }
+    }
+
+    private static void register(int opcode, String command) {
+        COMMANDS[opcode] = command;
+    }
+
+    /** MOVE_SUCCESS 标志位：白棋 */
+    private static final int FLAG_WHITE = 0x01;
+
+    /**
+     * 获取指令对应的操作码
+     *
+     * @return 操作码；未知指令返回 0
+     */
+    public static int opcodeOf(String command) {
+        Integer opcode = OPCODES.get(command);
+        return opcode != null ? opcode : 0;
+    }
+
+    /**
+     * 获取操作码对应的指令名
+     *
+     * @return 指令名；未知操作码返回 null
+     */
+    public static String commandOf(int opcode) {
+        return opcode > 0 && opcode < COMMANDS.length ? COMMANDS[opcode] : null;
+    }
+
+    /**
+     * 格子编号（0-224）
+     */
+    public static int packCell(int x, int y) {
+        return x * Protocol.BOARD_SIZE + y;
+    }
+
+    public static int cellX(int cell) {
+        return cell / Protocol.BOARD_SIZE;
+    }
+
+    public static int cellY(int cell) {
+        return cell % Protocol.BOARD_SIZE;
+    }
+
+    /**
+     * 将一条文本协议消息编码为二进制帧
+     *
+     * @param message 文本消息（如 Protocol.buildMessage 的结果）
+     * @return 完整的帧字节
+     * @throws IllegalArgumentException 指令没有对应的操作码，或 MOVE_SUCCESS 的坐标、颜色不合法
+     */
+    public static byte[] encode(String message) {
+        MessageParser parser = new MessageParser().reset(message);
+        String command = parser.nextString();
+        int opcode = opcodeOf(command);
+        if (opcode == 0) {
+            throw new IllegalArgumentException("没有对应操作码的指令: " + command);
+        }
+
+        byte[] payload;
+        if (opcode == OP_MOVE && isPackable(message)) {
+            payload = new byte[] { (byte) packCell(parser.nextInt(), parser.nextInt()) };
+        } else if (opcode == OP_MOVE_SUCCESS) {
+            if (!isPackable(message)) {
+                // 文本负载与紧凑编码无法区分，只能拒绝
+                throw new IllegalArgumentException("MOVE_SUCCESS 坐标或颜色不合法: " + message.trim());
+            }
+            int cell = packCell(parser.nextInt(), parser.nextInt());
+            int flags = Protocol.WHITE.equals(parser.nextString()) ? FLAG_WHITE : 0;
+            byte[] username = parser.remainder().getBytes(StandardCharsets.UTF_8);
+            payload = new byte[2 + username.length];
+            payload[0] = (byte) cell;
+            payload[1] = (byte) flags;
+            System.arraycopy(username, 0, payload, 2, username.length);
+        } else {
+            payload = parser.remainder().getBytes(StandardCharsets.UTF_8);
+        }
+
+        ByteArrayOutputStream frame = new ByteArrayOutputStream(payload.length + 4);
+        frame.write(opcode);
+        writeVarint(frame, payload.length);
+        frame.write(payload, 0, payload.length);
+        return frame.toByteArray();
+    }
+
+    /**
+     * 将一个二进制帧还原为文本协议消息（不含换行符），用于调试和日志；收发路径按操作码直接分派，不经过这里
+     */
+    public static String toText(int opcode, byte[] payload, int offset, int length) {
+        String command = commandOf(opcode);
+        if (command == null) {
+            return "";
+        }
+        if (opcode == OP_MOVE && length == 1) {
+            int cell = payload[offset] & 0xFF;
+            return command + Protocol.DELIMITER + cellX(cell) + Protocol.DELIMITER + cellY(cell);
+        }
+        if (opcode == OP_MOVE_SUCCESS && length >= 2) {
+            int cell = payload[offset] & 0xFF;
+            String color = (payload[offset + 1] & FLAG_WHITE) != 0 ? Protocol.WHITE : Protocol.BLACK;
+            String username = new String(payload, offset + 2, length - 2, StandardCharsets.UTF_8);
+            return String.join(Protocol.DELIMITER, command, String.valueOf(cellX(cell)),
+                    String.valueOf(cellY(cell)), color, username);
+        }
+        if (length == 0) {
+            return command;
+        }
+        return command + Protocol.DELIMITER + new String(payload, offset, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 解析 MOVE_SUCCESS 帧中的颜色
+     */
+    public static String moveColor(byte[] payload, int offset) {
+        return (payload[offset + 1] & FLAG_WHITE) != 0 ? Protocol.WHITE : Protocol.BLACK;
+    }
+
+    /**
+     * 写入无符号 varint（LEB128）
+     */
+    public static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * 坐标和颜色都合法时才使用紧凑编码，否则退回通用的文本负载
+     */
+    private static boolean isPackable(String message) {
+        MessageParser parser = new MessageParser().reset(message);
+        parser.skip();
+        try {
+            int x = parser.nextInt();
+            int y = parser.nextInt();
+            if (x < 0 || x >= Protocol.BOARD_SIZE || y < 0 || y >= Protocol.BOARD_SIZE) {
+                return false;
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (!parser.hasMore()) {
+            return true; // MOVE 只有坐标
+        }
+        String color = parser.nextString();
+        return Protocol.BLACK.equals(color) || Protocol.WHITE.equals(color);
+    }
+}
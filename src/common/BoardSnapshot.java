@@ -0,0 +1,137 @@
+package common;
+
+import java.util.Base64;
+
+/**
+ * 棋盘快照
+ * 一条 BOARD_SNAPSHOT 消息携带完整对局状态，中途加入的玩家和观战者一次性重建棋盘，
+ * 不再逐子接收 MOVE_SUCCESS。
+ *
+ * <pre>
+ * BOARD_SNAPSHOT|序号|轮到方|棋盘|落子顺序
+ * </pre>
+ *
+ * <ul>
+ * <li>序号：房间棋盘的版本号，每次落子或重置加一</li>
+ * <li>轮到方：BLACK/WHITE</li>
+ * <li>棋盘：每格 2 位（0 空，1 黑，2 白），格子编号 x * 15 + y，按小端顺序打包后 Base64 编码</li>
+ * <li>落子顺序：每手 1 字节格子编号，Base64 编码；空棋盘时为空字段</li>
+ * </ul>
+ */
+public class BoardSnapshot {
+
+    private static final int CELLS = Protocol.BOARD_SIZE * Protocol.BOARD_SIZE;
+
+    private final long sequence;
+    private final String sideToMove;
+    private final int[][] board;
+    private final int[] moves;
+
+    public BoardSnapshot(long sequence, String sideToMove, int[][] board, int[] moves) {
+        this.sequence = sequence;
+        this.sideToMove = sideToMove;
+        this.board = board;
+        this.moves = moves;
+    }
+
+    /**
+     * 编码为 BOARD_SNAPSHOT 消息
+     */
+    public String toMessage() {
+        byte[] packed = new byte[(CELLS + 3) / 4];
+        for (int x = 0; x < Protocol.BOARD_SIZE; x++) {
+            for (int y = 0; y < Protocol.BOARD_SIZE; y++) {
+                int cell = x * Protocol.BOARD_SIZE + y;
+                packed[cell >> 2] |= (board[x][y] & 0x03) << ((cell & 3) << 1);
+            }
+        }
+
+        byte[] order = new byte[moves.length];
+        for (int i = 0; i < moves.length; i++) {
+            order[i] = (byte) moves[i];
+        }
+
+        Base64.Encoder encoder = Base64.getEncoder();
+        return Protocol.buildMessage(Protocol.BOARD_SNAPSHOT,
+                String.valueOf(sequence),
+                sideToMove,
+                encoder.encodeToString(packed),
+                encoder.encodeToString(order));
+    }
+
+    /**
+     * 从消息中解析快照（解析器已读过指令名）
+     *
+     * @throws IllegalArgumentException 字段缺失或编码非法
+     */
+    public static BoardSnapshot parse(MessageParser parts) {
+        long sequence;
+        try {
+            sequence = Long.parseLong(parts.nextString());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("快照序号非法", e);
+        }
+        String sideToMove = parts.nextString();
+        String packedText = parts.nextString();
+        if (sideToMove == null || packedText == null) {
+            throw new IllegalArgumentException("快照字段缺失");
+        }
+        String orderText = parts.hasMore() ? parts.nextString() : "";
+
+        Base64.Decoder decoder = Base64.getDecoder();
+        byte[] packed = decoder.decode(packedText);
+        if (packed.length < (CELLS + 3) / 4) {
+            throw new IllegalArgumentException("快照棋盘长度非法");
+        }
+        int[][] board = new int[Protocol.BOARD_SIZE][Protocol.BOARD_SIZE];
+        for (int cell = 0; cell < CELLS; cell++) {
+            board[cell / Protocol.BOARD_SIZE][cell % Protocol.BOARD_SIZE] =
+                    (packed[cell >> 2] >> ((cell & 3) << 1)) & 0x03;
+        }
+
+        byte[] order = decoder.decode(orderText);
+        int[] moves = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            moves[i] = order[i] & 0xFF;
+            if (moves[i] >= CELLS) {
+                throw new IllegalArgumentException("快照落子编号非法");
+            }
+        }
+        return new BoardSnapshot(sequence, sideToMove, board, moves);
+    }
+
+    /**
+     * 棋盘版本号
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * 轮到哪一方落子（BLACK/WHITE）
+     */
+    public String getSideToMove() {
+        return sideToMove;
+    }
+
+    /**
+     * 棋盘状态：0-空，1-黑棋，2-白棋
+     */
+    public int[][] getBoard() {
+        return board;
+    }
+
+    /**
+     * 按落子先后排列的格子编号（x * 15 + y）
+     */
+    public int[] getMoves() {
+        return moves;
+    }
+
+    /**
+     * 已落子数量
+     */
+    public int getMoveCount() {
+        return moves.length;
+    }
+}
@@ -0,0 +1,143 @@
+package common;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 入站字节流分帧器
+ * 文本模式按换行符切分消息，二进制模式按 BinaryProtocol 的帧格式切分；
+ * 模式可以在回调中途切换（例如处理完 LOGIN 之后），同一批数据中剩余的字节立即按新模式解析。
+ *
+ * 非线程安全，每个连接的读线程持有一个实例
+ */
+public class FrameDecoder {
+
+    /**
+     * 分帧结果回调
+     */
+    public interface Listener {
+
+        /**
+         * 收到一行文本消息（不含换行符）
+         */
+        void onTextMessage(String message);
+
+        /**
+         * 收到一个二进制帧
+         *
+         * @param opcode  操作码
+         * @param payload 负载缓冲区（回调返回后会被复用）
+         * @param length  负载长度
+         */
+        void onBinaryFrame(int opcode, byte[] payload, int length);
+    }
+
+    private static final int STATE_OPCODE = 0;
+    private static final int STATE_LENGTH = 1;
+    private static final int STATE_PAYLOAD = 2;
+
+    private int maxLength;
+    private volatile boolean binary;
+
+    // 文本模式：当前行缓冲
+    // 二进制模式：当前帧负载缓冲
+    private byte[] buffer = new byte[128];
+    private int bufferLength;
+
+    // 二进制帧解析状态
+    private int state = STATE_OPCODE;
+    private int opcode;
+    private int payloadLength;
+    private int varintShift;
+
+    public FrameDecoder(int maxLength) {
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * 切换分帧模式
+     */
+    public void setBinary(boolean binary) {
+        this.binary = binary;
+    }
+
+    public boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * 输入一批收到的字节，解析出的完整消息依次交给回调
+     *
+     * @throws IOException 消息过长或帧格式非法
+     */
+    public void feed(byte[] data, int offset, int length, Listener listener) throws IOException {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            byte b = data[i];
+            if (!binary) {
+                if (b == '\n') {
+                    // 兼容 \r\n 结尾
+                    int lineLength = bufferLength;
+                    if (lineLength > 0 && buffer[lineLength - 1] == '\r') {
+                        lineLength--;
+                    }
+                    String message = new String(buffer, 0, lineLength, StandardCharsets.UTF_8);
+                    bufferLength = 0;
+                    listener.onTextMessage(message);
+                } else {
+                    append(b);
+                }
+                continue;
+            }
+
+            switch (state) {
+                case STATE_OPCODE:
+                    opcode = b & 0xFF;
+                    payloadLength = 0;
+                    varintShift = 0;
+                    state = STATE_LENGTH;
+                    break;
+
+                case STATE_LENGTH:
+                    payloadLength |= (b & 0x7F) << varintShift;
+                    varintShift += 7;
+                    if (payloadLength > maxLength || varintShift > 28) {
+                        throw new IOException("帧长度非法");
+                    }
+                    if ((b & 0x80) == 0) {
+                        bufferLength = 0;
+                        if (payloadLength == 0) {
+                            completeFrame(listener);
+                        } else {
+                            state = STATE_PAYLOAD;
+                        }
+                    }
+                    break;
+
+                default:
+                    append(b);
+                    if (bufferLength == payloadLength) {
+                        completeFrame(listener);
+                    }
+            }
+        }
+    }
+
+    private void completeFrame(Listener listener) {
+        state = STATE_OPCODE;
+        int length = bufferLength;
+        bufferLength = 0;
+        listener.onBinaryFrame(opcode, buffer, length);
+    }
+
+    private void append(byte b) throws IOException {
+        if (bufferLength == buffer.length) {
+            if (bufferLength >= maxLength) {
+                throw new IOException("消息过长");
+            }
+            buffer = Arrays.copyOf(buffer, Math.min(maxLength, buffer.length * 2));
+        }
+        buffer[bufferLength++] = b;
+    }
+}
@@ -0,0 +1,229 @@
+package common;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 游标式协议消息解析器
+ * 直接在收到的消息文本上按偏移量逐个读取字段，不拆分出中间数组和子串：
+ * 指令名匹配到协议常量，数字字段直接解析为 int，聊天内容按原样取剩余部分。
+ *
+ * 也可以直接解析二进制帧的 UTF-8 负载（{@link #reset(byte[], int, int)}）：分隔符和数字都是 ASCII，
+ * 不会出现在多字节字符内部，因此按字节查找分隔符、解析数字，只有读取字符串字段时才解码。
+ *
+ * 解析器可重复使用，但不是线程安全的，每个读线程应持有自己的实例
+ */
+public class MessageParser {
+
+    private static final char DELIMITER = Protocol.DELIMITER.charAt(0);
+
+    private CharSequence text;
+    private byte[] bytes; // 解析二进制负载时使用，此时 text 为 null
+    private int start; // 去除首尾空白后的起始位置
+    private int end; // 去除首尾空白后的结束位置（不含）
+    private int position; // 下一个字段的起始位置，大于 end 表示已读完
+
+    /**
+     * 开始解析一条新消息（忽略首尾空白和换行符）
+     *
+     * @return this，便于链式调用
+     */
+    public MessageParser reset(CharSequence message) {
+        text = message;
+        bytes = null;
+        start = 0;
+        end = message == null ? 0 : message.length();
+        return trim();
+    }
+
+    /**
+     * 开始解析二进制帧的 UTF-8 负载（指令已由操作码给出，负载中只有指令名之后的字段）
+     *
+     * @return this，便于链式调用
+     */
+    public MessageParser reset(byte[] payload, int offset, int length) {
+        text = null;
+        bytes = payload;
+        start = offset;
+        end = offset + length;
+        return trim();
+    }
+
+    private MessageParser trim() {
+        while (start < end && charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && charAt(end - 1) <= ' ') {
+            end--;
+        }
+        position = start;
+        if (start == end) {
+            position = end + 1; // 空消息没有任何字段
+        }
+        return this;
+    }
+
+    /**
+     * 消息的字段总数（含指令名；解析二进制负载时指令名由操作码给出，同样计入）
+     */
+    public int fieldCount() {
+        int command = bytes != null ? 1 : 0;
+        if (start == end) {
+            return command;
+        }
+        int count = command + 1;
+        for (int i = start; i < end; i++) {
+            if (charAt(i) == DELIMITER) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 是否还有未读取的字段
+     */
+    public boolean hasMore() {
+        return position <= end;
+    }
+
+    /**
+     * 读取指令名，并匹配为给定的协议常量之一
+     * 匹配成功时返回常量本身（不分配新字符串），未知指令才创建字符串
+     *
+     * @param commands 候选指令常量
+     * @return 匹配到的指令常量；消息为空时返回 null
+     */
+    public String nextCommand(String[] commands) {
+        if (!hasMore()) {
+            return null;
+        }
+        int fieldEnd = fieldEnd();
+        int length = fieldEnd - position;
+        for (String command : commands) {
+            if (command.length() == length && regionMatches(command, position)) {
+                position = fieldEnd + 1;
+                return command;
+            }
+        }
+        return nextString();
+    }
+
+    /**
+     * 读取下一个字段并转换为字符串
+     *
+     * @return 字段内容；没有更多字段时返回 null
+     */
+    public String nextString() {
+        if (!hasMore()) {
+            return null;
+        }
+        int fieldEnd = fieldEnd();
+        String value = substring(position, fieldEnd);
+        position = fieldEnd + 1;
+        return value;
+    }
+
+    /**
+     * 读取下一个字段并直接解析为整数
+     *
+     * @throws NumberFormatException 字段缺失或不是合法整数
+     */
+    public int nextInt() {
+        if (!hasMore()) {
+            throw new NumberFormatException("缺少数字字段");
+        }
+        int fieldEnd = fieldEnd();
+        int i = position;
+        boolean negative = false;
+        if (i < fieldEnd && (charAt(i) == '-' || charAt(i) == '+')) {
+            negative = charAt(i) == '-';
+            i++;
+        }
+        if (i == fieldEnd) {
+            throw new NumberFormatException("数字字段为空");
+        }
+
+        long value = 0;
+        for (; i < fieldEnd; i++) {
+            int c = charAt(i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("非法数字字符: " + (char) c);
+            }
+            value = value * 10 + (c - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("数字超出范围");
+            }
+        }
+        if (negative) {
+            value = -value;
+        }
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("数字超出范围");
+        }
+
+        position = fieldEnd + 1;
+        return (int) value;
+    }
+
+    /**
+     * 跳过下一个字段
+     */
+    public void skip() {
+        if (hasMore()) {
+            position = fieldEnd() + 1;
+        }
+    }
+
+    /**
+     * 读取剩余的全部内容（保留其中的分隔符），用于聊天消息等自由文本
+     *
+     * @return 剩余内容；没有更多字段时返回空字符串
+     */
+    public String remainder() {
+        if (!hasMore()) {
+            return "";
+        }
+        String value = substring(position, end);
+        position = end + 1;
+        return value;
+    }
+
+    /**
+     * 整条消息（去除首尾空白），用于日志
+     */
+    @Override
+    public String toString() {
+        return start < end ? substring(start, end) : "";
+    }
+
+    private int fieldEnd() {
+        int i = position;
+        while (i < end && charAt(i) != DELIMITER) {
+            i++;
+        }
+        return i;
+    }
+
+    private boolean regionMatches(String value, int offset) {
+        for (int i = 0; i < value.length(); i++) {
+            if (charAt(offset + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 文本模式为字符，负载模式为无符号字节（多字节字符的各字节都不小于 0x80，不会与 ASCII 混淆）
+     */
+    private int charAt(int i) {
+        return bytes != null ? bytes[i] & 0xFF : text.charAt(i);
+    }
+
+    private String substring(int from, int to) {
+        if (bytes != null) {
+            return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+        }
+        return text.subSequence(from, to).toString();
+    }
+}
@@ -1,5 +1,7 @@
 package common;
 
+import java.util.Arrays;
+
 /**
  * 通信协议常量定义
  * 服务器与客户端使用统一的协议格式进行通信
@@ -8,7 +10,7 @@ public class Protocol {
 
     // ==================== 客户端 -> 服务器 ====================
 
-    /** 登录请求：LOGIN|用户名 */
+    /** 登录请求：LOGIN|用户名[|BIN1][|HB1]，附带 BIN1 表示请求使用二进制协议，附带 HB1 表示支持心跳 */
     public static final String LOGIN = "LOGIN";
 
     /** 落子请求：MOVE|x|y */
@@ -44,12 +46,24 @@ public class Protocol {
     /** 加入指定房间：JOIN_ROOM_BY_ID|房间ID */
     public static final String JOIN_ROOM_BY_ID = "JOIN_ROOM_BY_ID";
 
-    /** 获取房间列表：GET_ROOM_LIST */
+    /** 获取房间列表：GET_ROOM_LIST[|已知版本]，带版本号时服务器回复 ROOM_LIST_DELTA */
     public static final String GET_ROOM_LIST = "GET_ROOM_LIST";
 
     /** 请求房间状态：REQUEST_ROOM_STATE */
     public static final String REQUEST_ROOM_STATE = "REQUEST_ROOM_STATE";
 
+    /** 订阅大厅：LOBBY_SUBSCRIBE[|已知版本]，之后服务器定时推送 ROOM_LIST_DELTA */
+    public static final String LOBBY_SUBSCRIBE = "LOBBY_SUBSCRIBE";
+
+    /** 取消订阅大厅：LOBBY_UNSUBSCRIBE */
+    public static final String LOBBY_UNSUBSCRIBE = "LOBBY_UNSUBSCRIBE";
+
+    /** 心跳：PING（双向），收到后回复 PONG */
+    public static final String PING = "PING";
+
+    /** 心跳回复：PONG（双向） */
+    public static final String PONG = "PONG";
+
     /** 坐下黑棋席：SIT_BLACK */
     public static final String SIT_BLACK = "SIT_BLACK";
 
@@ -67,7 +81,7 @@ public class Protocol {
 
     // ==================== 服务器 -> 客户端 ====================
 
-    /** 登录成功：LOGIN_SUCCESS|用户名 */
+    /** 登录成功：LOGIN_SUCCESS|用户名[|BIN1][|HB1]，附带 BIN1 表示此后双方改用二进制帧，附带 HB1 表示服务器会发送心跳 */
     public static final String LOGIN_SUCCESS = "LOGIN_SUCCESS";
 
     /** 登录失败：LOGIN_FAIL|原因 */
@@ -130,6 +144,12 @@ public class Protocol {
     /** 棋盘重置：BOARD_RESET */
     public static final String BOARD_RESET = "BOARD_RESET";
 
+    /** 房间列表增量：ROOM_LIST_DELTA|版本|FULL或DELTA|条目数|房间ID|状态|人数...（格式见 RoomListDelta） */
+    public static final String ROOM_LIST_DELTA = "ROOM_LIST_DELTA";
+
+    /** 棋盘快照：BOARD_SNAPSHOT|序号|轮到方|棋盘|落子顺序（格式见 BoardSnapshot） */
+    public static final String BOARD_SNAPSHOT = "BOARD_SNAPSHOT";
+
     // ==================== 常量定义 ====================
 
     /** 棋子颜色 - 黑色 */
@@ -159,6 +179,12 @@ public class Protocol {
     /** 平局原因 - 棋盘下满 */
     public static final String DRAW = "DRAW";
 
+    /** 二进制协议版本标识（见 BinaryProtocol） */
+    public static final String BINARY_V1 = "BIN1";
+
+    /** 心跳能力标识：登录时附带表示客户端会回复 PING，服务器只对这样的连接发送心跳并按空闲超时回收 */
+    public static final String HEARTBEAT_V1 = "HB1";
+
     /** 消息分隔符 */
     public static final String DELIMITER = "|";
 
@@ -181,8 +207,26 @@ public class Protocol {
         return String.join(DELIMITER, parts) + MESSAGE_END;
     }
 
+    /** 客户端 -> 服务器的全部指令（用于无分配的指令匹配） */
+    public static final String[] CLIENT_COMMANDS = {
+            LOGIN, MOVE, CHAT, REST_REQUEST, TAKEOVER_REQUEST, TAKEOVER_RESPONSE, QUIT, READY_FOR_NEXT,
+            SPECTATE, CREATE_ROOM, QUICK_JOIN, JOIN_ROOM_BY_ID, GET_ROOM_LIST, REQUEST_ROOM_STATE,
+            SIT_BLACK, SIT_WHITE, SIT_SPECTATOR, BATTLE_INVITE, BATTLE_RESPONSE, LOBBY_SUBSCRIBE,
+            LOBBY_UNSUBSCRIBE, PING, PONG
+    };
+
+    /** 服务器 -> 客户端的全部指令（用于无分配的指令匹配） */
+    public static final String[] SERVER_COMMANDS = {
+            MOVE_SUCCESS, CHAT_MSG, SEAT_UPDATE, SYSTEM, ROLE_CHANGE, GAME_OVER, MOVE_FAIL, ERROR,
+            LOGIN_SUCCESS, LOGIN_FAIL, WAITING, GAME_START, JOIN_ROOM, TAKEOVER_ASK, TAKEOVER_RESULT,
+            ROOM_CREATED, ROOM_LIST, WAITING_FOR_OPPONENT, BATTLE_INVITE_NOTIFY, BATTLE_START, BOARD_RESET,
+            BOARD_SNAPSHOT, ROOM_LIST_DELTA, PING, PONG
+    };
+
     /**
      * 解析协议消息
+     * 保留原有的数组接口供旧代码使用，内部由 MessageParser 完成切分；
+     * 热路径请直接使用 MessageParser 以避免逐字段分配
      * 
      * @param message 原始消息
      * @return 消息各部分数组
@@ -191,8 +235,19 @@ public class Protocol {
         if (message == null || message.isEmpty()) {
             return new String[0];
         }
-        // 移除末尾的换行符
-        message = message.trim();
-        return message.split("\\" + DELIMITER);
+        MessageParser parser = new MessageParser().reset(message);
+        int count = parser.fieldCount();
+        if (count == 0) {
+            return new String[] { "" };
+        }
+        String[] parts = new String[count];
+        for (int i = 0; i < count; i++) {
+            parts[i] = parser.nextString();
+        }
+        // 与 String.split 保持一致：去掉末尾的空字段
+        while (count > 0 && parts[count - 1].isEmpty()) {
+            count--;
+        }
+        return count == parts.length ? parts : Arrays.copyOf(parts, count);
     }
 }
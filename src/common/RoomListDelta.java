@@ -0,0 +1,134 @@
+package common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 房间列表增量
+ * 客户端发送 GET_ROOM_LIST|已知版本，服务器只回复该版本之后新增、变化或关闭的房间；
+ * 客户端版本过旧（超出服务器保留的关闭记录范围）时回复完整列表。
+ *
+ * <pre>
+ * ROOM_LIST_DELTA|版本|FULL或DELTA|条目数|房间ID|状态|人数|房间ID|状态|人数...
+ * </pre>
+ *
+ * 人数为 -1 表示房间已关闭；FULL 模式下客户端应先清空本地列表再应用条目
+ */
+public class RoomListDelta {
+
+    /** 完整列表 */
+    public static final String FULL = "FULL";
+
+    /** 增量列表 */
+    public static final String DELTA = "DELTA";
+
+    /** 房间已关闭的人数标记 */
+    public static final int REMOVED = -1;
+
+    /**
+     * 单个房间条目
+     */
+    public static final class Entry {
+
+        private final String roomId;
+        private final String status;
+        private final int memberCount;
+
+        public Entry(String roomId, String status, int memberCount) {
+            this.roomId = roomId;
+            this.status = status;
+            this.memberCount = memberCount;
+        }
+
+        public String getRoomId() {
+            return roomId;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public int getMemberCount() {
+            return memberCount;
+        }
+
+        /**
+         * 房间是否已关闭
+         */
+        public boolean isRemoved() {
+            return memberCount == REMOVED;
+        }
+    }
+
+    private final long version;
+    private final boolean full;
+    private final List<Entry> entries;
+
+    public RoomListDelta(long version, boolean full, List<Entry> entries) {
+        this.version = version;
+        this.full = full;
+        this.entries = entries;
+    }
+
+    /**
+     * 编码为 ROOM_LIST_DELTA 消息
+     */
+    public String toMessage() {
+        StringBuilder sb = new StringBuilder(32 + entries.size() * 24);
+        sb.append(Protocol.ROOM_LIST_DELTA)
+                .append(Protocol.DELIMITER).append(version)
+                .append(Protocol.DELIMITER).append(full ? FULL : DELTA)
+                .append(Protocol.DELIMITER).append(entries.size());
+        for (Entry entry : entries) {
+            sb.append(Protocol.DELIMITER).append(entry.roomId)
+                    .append(Protocol.DELIMITER).append(entry.isRemoved() ? "" : entry.status)
+                    .append(Protocol.DELIMITER).append(entry.memberCount);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 从消息中解析增量（解析器已读过指令名）
+     *
+     * @throws IllegalArgumentException 字段缺失或格式非法
+     */
+    public static RoomListDelta parse(MessageParser parts) {
+        try {
+            long version = Long.parseLong(parts.nextString());
+            boolean full = FULL.equals(parts.nextString());
+            int count = parts.nextInt();
+            List<Entry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String roomId = parts.nextString();
+                String status = parts.nextString();
+                int memberCount = parts.nextInt();
+                if (roomId == null || status == null) {
+                    throw new IllegalArgumentException("房间条目字段缺失");
+                }
+                entries.add(new Entry(roomId, status, memberCount));
+            }
+            return new RoomListDelta(version, full, entries);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("房间列表增量格式非法", e);
+        }
+    }
+
+    /**
+     * 本次结果对应的目录版本，客户端下次请求时带上
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 是否为完整列表
+     */
+    public boolean isFull() {
+        return full;
+    }
+
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+}
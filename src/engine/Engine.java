@@ -0,0 +1,156 @@
+package engine;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import server.RuleEngine;
+
+/**
+ * 五子棋 AI 引擎
+ * 迭代加深 alpha-beta 搜索，带固定大小的置换表；置换表跨局面保留，同一盘棋连续调用可以复用上一步的结果。
+ * 一个引擎对象同时只执行一次搜索，并发对局各用一个引擎对象。
+ *
+ * 线程数大于 1 时使用 Lazy SMP：调用线程作为主线程按预算搜索并给出结果，
+ * 其余线程同时搜索同一局面，通过共享的无锁置换表加快主线程的搜索；节点预算只计主线程的节点
+ *
+ * <pre>
+ * Engine engine = new Engine(16, 4);
+ * SearchResult result = engine.search(chessRule, 2, SearchLimits.time(500));
+ * chessRule.makeMove(result.getX(), result.getY(), 2);
+ * engine.shutdown();
+ * </pre>
+ */
+public class Engine {
+
+    /** 默认置换表大小（MB） */
+    public static final int DEFAULT_HASH_MB = 16;
+
+    private final TranspositionTable table;
+    private final Search search;
+    private final Search[] helpers;
+    private final Future<?>[] pending;
+    private final ExecutorService helperPool; // 单线程时为 null
+
+    public Engine() {
+        this(DEFAULT_HASH_MB);
+    }
+
+    /**
+     * @param hashMb 置换表大小（MB）
+     */
+    public Engine(int hashMb) {
+        this(hashMb, 1);
+    }
+
+    /**
+     * @param hashMb 置换表大小（MB）
+     * @param threads 搜索线程数（含调用线程）
+     */
+    public Engine(int hashMb, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("搜索线程数至少为 1: " + threads);
+        }
+        this.table = new TranspositionTable(hashMb);
+        this.search = new Search(table);
+        this.helpers = new Search[threads - 1];
+        this.pending = new Future<?>[threads - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = new Search(table, i + 1);
+        }
+        if (helpers.length == 0) {
+            this.helperPool = null;
+        } else {
+            AtomicInteger next = new AtomicInteger(1);
+            this.helperPool = Executors.newFixedThreadPool(helpers.length, r -> {
+                Thread thread = new Thread(r, "engine-helper-" + next.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * 搜索最佳着法
+     *
+     * @param board 当前棋盘，搜索时只读取，不会修改（搜索期间调用方不能修改）
+     * @param stone 行棋方，1-黑棋，2-白棋
+     * @param limits 深度、时间和节点预算
+     */
+    public synchronized SearchResult search(RuleEngine board, int stone, SearchLimits limits) {
+        if (stone != 1 && stone != 2) {
+            throw new IllegalArgumentException("无效的行棋方: " + stone);
+        }
+        if (helperPool == null) {
+            return search.run(board, stone, limits);
+        }
+
+        for (int i = 0; i < helpers.length; i++) {
+            Search helper = helpers[i];
+            helper.resetAbort();
+            pending[i] = helperPool.submit(() -> helper.runHelper(board, stone, limits.getMaxDepth()));
+        }
+        SearchResult result;
+        try {
+            result = search.run(board, stone, limits);
+        } finally {
+            for (Search helper : helpers) {
+                helper.abort();
+            }
+            awaitHelpers();
+        }
+
+        long totalNodes = result.getNodes();
+        for (Search helper : helpers) {
+            totalNodes += helper.getNodes();
+        }
+        return result.withNodes(totalNodes);
+    }
+
+    /**
+     * 等待辅助线程退出（停止通知后最多再搜索几个节点）
+     */
+    private void awaitHelpers() {
+        boolean interrupted = false;
+        for (int i = 0; i < pending.length; i++) {
+            while (true) {
+                try {
+                    pending[i].get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("辅助搜索线程异常", e.getCause());
+                }
+            }
+            pending[i] = null;
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 开始新的一局：清空置换表
+     */
+    public synchronized void newGame() {
+        table.clear();
+    }
+
+    /**
+     * 搜索线程数（含调用线程）
+     */
+    public int getThreads() {
+        return helpers.length + 1;
+    }
+
+    /**
+     * 停止辅助线程，之后不能再搜索（辅助线程为守护线程，进程退出时不调用也可以）
+     */
+    public synchronized void shutdown() {
+        if (helperPool != null) {
+            helperPool.shutdownNow();
+        }
+    }
+}
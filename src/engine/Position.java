@@ -0,0 +1,253 @@
+package engine;
+
+import common.Protocol;
+import server.BitboardChessRule;
+import server.RuleEngine;
+
+/**
+ * 搜索用局面
+ * 落子、撤销、胜负判定和 Zobrist 哈希交给位棋盘规则引擎，在其上增量维护两类信息：
+ * 1. 每个五元组（同一条线上连续 5 个格子）中的黑白棋子数，局面评估是所有五元组得分之和，
+ *    落子和撤销只更新经过该点的至多 20 个五元组；
+ * 2. 每个格子周围两格内的棋子数，用于生成候选着法。
+ * 落子和撤销都不分配对象
+ */
+final class Position {
+
+    static final int SIZE = Protocol.BOARD_SIZE;
+    static final int CELLS = SIZE * SIZE;
+    static final int BLACK = 1;
+    static final int WHITE = 2;
+
+    /** 只有一方棋子的五元组得分，按五元组内棋子数取值 */
+    private static final int[] WINDOW_SCORE = {0, 1, 16, 256, 4096, 65536};
+
+    private static final int[][] WINDOW_CELLS; // 每个五元组包含的格子
+    private static final int[][] CELL_WINDOWS; // 经过每个格子的五元组
+    private static final int[][] NEIGHBORS; // 每个格子周围两格内的格子
+
+    static {
+        int[][] windows = new int[CELLS * 4][];
+        int count = 0;
+        int[] dx = {1, 0, 1, 1};
+        int[] dy = {0, 1, 1, -1};
+        for (int d = 0; d < 4; d++) {
+            for (int x = 0; x < SIZE; x++) {
+                for (int y = 0; y < SIZE; y++) {
+                    int ex = x + dx[d] * 4;
+                    int ey = y + dy[d] * 4;
+                    if (ex < 0 || ex >= SIZE || ey < 0 || ey >= SIZE) {
+                        continue;
+                    }
+                    int[] window = new int[5];
+                    for (int i = 0; i < 5; i++) {
+                        window[i] = (x + dx[d] * i) * SIZE + y + dy[d] * i;
+                    }
+                    windows[count++] = window;
+                }
+            }
+        }
+        WINDOW_CELLS = new int[count][];
+        System.arraycopy(windows, 0, WINDOW_CELLS, 0, count);
+
+        int[] perCell = new int[CELLS];
+        for (int[] window : WINDOW_CELLS) {
+            for (int cell : window) {
+                perCell[cell]++;
+            }
+        }
+        CELL_WINDOWS = new int[CELLS][];
+        for (int cell = 0; cell < CELLS; cell++) {
+            CELL_WINDOWS[cell] = new int[perCell[cell]];
+            perCell[cell] = 0;
+        }
+        for (int w = 0; w < WINDOW_CELLS.length; w++) {
+            for (int cell : WINDOW_CELLS[w]) {
+                CELL_WINDOWS[cell][perCell[cell]++] = w;
+            }
+        }
+
+        NEIGHBORS = new int[CELLS][];
+        int[] buffer = new int[24];
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                int n = 0;
+                for (int nx = x - 2; nx <= x + 2; nx++) {
+                    for (int ny = y - 2; ny <= y + 2; ny++) {
+                        if ((nx != x || ny != y) && nx >= 0 && nx < SIZE && ny >= 0 && ny < SIZE) {
+                            buffer[n++] = nx * SIZE + ny;
+                        }
+                    }
+                }
+                NEIGHBORS[x * SIZE + y] = new int[n];
+                System.arraycopy(buffer, 0, NEIGHBORS[x * SIZE + y], 0, n);
+            }
+        }
+    }
+
+    private final BitboardChessRule rule = new BitboardChessRule();
+    private final int[] cells = new int[CELLS]; // 0-空，1-黑棋，2-白棋
+    private final int[] blackCount = new int[WINDOW_CELLS.length];
+    private final int[] whiteCount = new int[WINDOW_CELLS.length];
+    private final int[] near = new int[CELLS]; // 周围两格内的棋子数
+    private final int[] fours = new int[3]; // 各方“再下一子即成五”的五元组数（四子且没有对方棋子）
+    private final int[] history = new int[CELLS];
+    private int moveCount;
+    private int score; // 所有五元组得分之和（黑方视角）
+
+    /**
+     * 从规则引擎复制局面（按落子顺序重放）
+     */
+    void load(RuleEngine source) {
+        reset();
+        for (int cell : source.getMoveHistory()) {
+            makeMove(cell, source.getStone(cell / SIZE, cell % SIZE));
+        }
+    }
+
+    /**
+     * 清空局面
+     */
+    void reset() {
+        while (moveCount > 0) {
+            unmakeMove();
+        }
+    }
+
+    /**
+     * 落子（调用方保证格子为空）
+     */
+    void makeMove(int cell, int stone) {
+        rule.makeMove(cell / SIZE, cell % SIZE, stone);
+        cells[cell] = stone;
+        history[moveCount++] = cell;
+        for (int w : CELL_WINDOWS[cell]) {
+            int black = blackCount[w];
+            int white = whiteCount[w];
+            score -= windowValue(black, white);
+            updateFours(black, white, -1);
+            if (stone == BLACK) {
+                black = ++blackCount[w];
+            } else {
+                white = ++whiteCount[w];
+            }
+            score += windowValue(black, white);
+            updateFours(black, white, 1);
+        }
+        for (int neighbor : NEIGHBORS[cell]) {
+            near[neighbor]++;
+        }
+    }
+
+    /**
+     * 撤销最后一步落子
+     */
+    void unmakeMove() {
+        int cell = history[--moveCount];
+        int stone = cells[cell];
+        rule.unmakeMove();
+        cells[cell] = 0;
+        for (int w : CELL_WINDOWS[cell]) {
+            int black = blackCount[w];
+            int white = whiteCount[w];
+            score -= windowValue(black, white);
+            updateFours(black, white, -1);
+            if (stone == BLACK) {
+                black = --blackCount[w];
+            } else {
+                white = --whiteCount[w];
+            }
+            score += windowValue(black, white);
+            updateFours(black, white, 1);
+        }
+        for (int neighbor : NEIGHBORS[cell]) {
+            near[neighbor]--;
+        }
+    }
+
+    private void updateFours(int black, int white, int delta) {
+        if (black == 4 && white == 0) {
+            fours[BLACK] += delta;
+        } else if (white == 4 && black == 0) {
+            fours[WHITE] += delta;
+        }
+    }
+
+    private static int windowValue(int black, int white) {
+        if (white == 0) {
+            return WINDOW_SCORE[black];
+        }
+        if (black == 0) {
+            return -WINDOW_SCORE[white];
+        }
+        return 0;
+    }
+
+    /**
+     * 静态评估（行棋方视角）
+     */
+    int evaluate(int stone) {
+        return stone == BLACK ? score : -score;
+    }
+
+    /**
+     * 在该格落子后评估值的变化（落子方视角）：既包括本方五元组的增长，也包括封堵对方五元组
+     */
+    int gain(int cell, int stone) {
+        int delta = 0;
+        for (int w : CELL_WINDOWS[cell]) {
+            int black = blackCount[w];
+            int white = whiteCount[w];
+            int before = windowValue(black, white);
+            delta += stone == BLACK
+                    ? windowValue(black + 1, white) - before
+                    : before - windowValue(black, white + 1);
+        }
+        return delta;
+    }
+
+    /**
+     * 一方是否有“再下一子即成五”的五元组（不区分长连，作为快速筛选）
+     */
+    boolean hasFour(int stone) {
+        return fours[stone] > 0;
+    }
+
+    /**
+     * 在该格落子是否恰好连成五子（先用五元组筛选，再用规则引擎确认，排除长连）
+     */
+    boolean completesFive(int cell, int stone) {
+        int[] own = stone == BLACK ? blackCount : whiteCount;
+        int[] other = stone == BLACK ? whiteCount : blackCount;
+        for (int w : CELL_WINDOWS[cell]) {
+            if (own[w] == 4 && other[w] == 0) {
+                int x = cell / SIZE;
+                int y = cell % SIZE;
+                rule.makeMove(x, y, stone);
+                boolean win = rule.checkWin(x, y);
+                rule.unmakeMove();
+                return win;
+            }
+        }
+        return false;
+    }
+
+    boolean isEmpty(int cell) {
+        return cells[cell] == 0;
+    }
+
+    /**
+     * 是否为候选着法：空格且周围两格内有棋子
+     */
+    boolean isCandidate(int cell) {
+        return cells[cell] == 0 && near[cell] > 0;
+    }
+
+    long hash() {
+        return rule.getHash();
+    }
+
+    int moveCount() {
+        return moveCount;
+    }
+}
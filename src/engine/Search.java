@@ -0,0 +1,347 @@
+package engine;
+
+import server.RuleEngine;
+
+/**
+ * 迭代加深的负极大值 alpha-beta 搜索
+ * 每个搜索对象持有自己的局面和按层预分配的着法、排序分数、主要变例数组，搜索过程中不分配对象；
+ * 置换表可以由多个搜索对象共享。
+ *
+ * 着法生成和排序按五元组威胁：
+ * 1. 本方有一手成五的点时直接返回胜利；
+ * 2. 对方有一手成五的点时只搜索封堵点；
+ * 3. 其余候选点（周围两格内有棋子的空格）按“本方落子增益 + 对方在此落子的增益”排序，
+ *    置换表着法最先搜索，每层只搜索排序靠前的若干着法。
+ * 叶子节点上行棋方有一手恰好成五的点（规则引擎确认，长连不算）时按胜利计分，否则取五元组静态评估。
+ *
+ * 多线程搜索（Lazy SMP）时每个线程一个搜索对象：主线程按预算迭代加深并给出结果，
+ * 辅助线程搜索同一局面、不设预算，只通过共享置换表帮助主线程截断，主线程结束后由 {@link #abort()} 停止。
+ * 奇数编号的辅助线程从深度 2 开始，辅助线程的着法排序加入按编号不同的小扰动，使各线程尽量搜索不同的子树
+ */
+final class Search {
+
+    static final int MAX_PLY = 64;
+    static final int WIN = 1_000_000;
+    static final int WIN_THRESHOLD = WIN - 1000; // 分数绝对值超过此值表示已算出胜负
+    private static final int INFINITY = WIN + 1;
+
+    private static final int ROOT_BRANCH = 24; // 根节点最多搜索的着法数
+    private static final int MAX_BRANCH = 12; // 其余节点最多搜索的着法数
+
+    private static final long WHITE_TO_MOVE = 0x9E37_79B9_7F4A_7C15L; // 白方行棋时异或到置换表键上
+
+    private final TranspositionTable table;
+    private final int helperId; // 0 为主线程
+    private final Position position = new Position();
+    private final int[][] moves = new int[MAX_PLY][Position.CELLS];
+    private final int[][] scores = new int[MAX_PLY][Position.CELLS];
+    private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+
+    private long nodes;
+    private long deadline;
+    private long maxNodes;
+    private int iterationDepth;
+    private boolean stopped;
+    private volatile boolean aborted;
+
+    Search(TranspositionTable table) {
+        this(table, 0);
+    }
+
+    Search(TranspositionTable table, int helperId) {
+        this.table = table;
+        this.helperId = helperId;
+    }
+
+    /**
+     * 搜索最佳着法
+     *
+     * @param board 当前棋盘（不会被修改）
+     * @param stone 行棋方，1-黑棋，2-白棋
+     */
+    SearchResult run(RuleEngine board, int stone, SearchLimits limits) {
+        long start = System.nanoTime();
+        position.load(board);
+        nodes = 0;
+        stopped = false;
+        deadline = limits.getTimeMs() > 0 ? start + limits.getTimeMs() * 1_000_000L : Long.MAX_VALUE;
+        maxNodes = limits.getMaxNodes() > 0 ? limits.getMaxNodes() : Long.MAX_VALUE;
+
+        if (position.moveCount() == 0) {
+            int center = (Position.SIZE / 2) * Position.SIZE + Position.SIZE / 2;
+            return new SearchResult(center, 0, 0, 0, elapsedMs(start), new int[] {center});
+        }
+        if (position.moveCount() == Position.CELLS) {
+            return new SearchResult(-1, 0, 0, 0, elapsedMs(start), new int[0]);
+        }
+
+        int bestScore = 0;
+        int completedDepth = 0;
+        int[] bestPv = new int[0];
+        for (iterationDepth = 1; iterationDepth <= limits.getMaxDepth(); iterationDepth++) {
+            int score = negamax(iterationDepth, 0, -INFINITY, INFINITY, stone);
+            if (stopped) {
+                break; // 未搜完的迭代结果不可靠，沿用上一轮
+            }
+            bestScore = score;
+            completedDepth = iterationDepth;
+            bestPv = new int[pvLength[0]];
+            System.arraycopy(pv[0], 0, bestPv, 0, pvLength[0]);
+            if (Math.abs(score) >= WIN_THRESHOLD) {
+                break; // 已算出胜负，更深的搜索不会改变结论
+            }
+        }
+        return new SearchResult(bestPv[0], bestScore, completedDepth, nodes, elapsedMs(start), bestPv);
+    }
+
+    /**
+     * 辅助线程搜索：不设时间和节点预算，迭代加深直到 maxDepth 或被 {@link #abort()} 停止，结果只写入置换表
+     */
+    void runHelper(RuleEngine board, int stone, int maxDepth) {
+        position.load(board);
+        nodes = 0;
+        stopped = false;
+        deadline = Long.MAX_VALUE;
+        maxNodes = Long.MAX_VALUE;
+        if (position.moveCount() == 0 || position.moveCount() == Position.CELLS) {
+            return;
+        }
+        for (iterationDepth = 1 + (helperId & 1); iterationDepth <= maxDepth && !stopped; iterationDepth++) {
+            negamax(iterationDepth, 0, -INFINITY, INFINITY, stone);
+        }
+    }
+
+    /**
+     * 清除停止标志（在提交辅助线程搜索之前调用）
+     */
+    void resetAbort() {
+        aborted = false;
+    }
+
+    /**
+     * 通知搜索尽快停止，可以从其他线程调用
+     */
+    void abort() {
+        aborted = true;
+    }
+
+    /**
+     * 最近一次搜索的节点数
+     */
+    long getNodes() {
+        return nodes;
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta, int stone) {
+        pvLength[ply] = ply;
+        nodes++;
+        if (shouldStop()) {
+            return 0;
+        }
+        if (position.moveCount() == Position.CELLS) {
+            return 0; // 和棋
+        }
+        if (depth == 0 || ply == MAX_PLY - 1) {
+            if (findFive(stone) >= 0) {
+                return WIN - ply - 1;
+            }
+            return position.evaluate(stone);
+        }
+
+        long key = position.hash() ^ (stone == Position.WHITE ? WHITE_TO_MOVE : 0);
+        long entry = table.probe(key);
+        int ttMove = TranspositionTable.NO_MOVE;
+        if (entry != 0) {
+            ttMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int flag = TranspositionTable.flag(entry);
+                if (flag == TranspositionTable.EXACT
+                        || (flag == TranspositionTable.LOWER && score >= beta)
+                        || (flag == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int count = generate(ply, stone, ttMove);
+        if (count < 0) {
+            pv[ply][ply] = moves[ply][0];
+            pvLength[ply] = ply + 1;
+            return WIN - ply;
+        }
+        int limit = Math.min(count, ply == 0 ? ROOT_BRANCH : MAX_BRANCH);
+
+        int[] list = moves[ply];
+        int opponent = 3 - stone;
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = TranspositionTable.NO_MOVE;
+        for (int i = 0; i < limit; i++) {
+            selectNext(ply, i, count);
+            int cell = list[i];
+            position.makeMove(cell, stone);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha, opponent);
+            position.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = cell;
+                if (score > alpha) {
+                    alpha = score;
+                    pv[ply][ply] = cell;
+                    System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+                    pvLength[ply] = Math.max(pvLength[ply + 1], ply + 1);
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        int flag = best <= originalAlpha ? TranspositionTable.UPPER
+                : best >= beta ? TranspositionTable.LOWER
+                : TranspositionTable.EXACT;
+        table.store(key, bestMove, depth, flag, toTable(best, ply));
+        return best;
+    }
+
+    /**
+     * 生成当前层的着法和排序分数
+     *
+     * @return 着法数；本方可以一手成五时返回 -1，成五点放在 moves[ply][0]
+     */
+    private int generate(int ply, int stone, int ttMove) {
+        int[] list = moves[ply];
+        int[] value = scores[ply];
+        int opponent = 3 - stone;
+        int count = 0;
+
+        int five = findFive(stone);
+        if (five >= 0) {
+            list[0] = five;
+            return -1;
+        }
+        if (position.hasFour(opponent)) {
+            for (int cell = 0; cell < Position.CELLS; cell++) {
+                if (position.isCandidate(cell) && position.completesFive(cell, opponent)) {
+                    list[count] = cell;
+                    value[count] = 0;
+                    count++;
+                }
+            }
+            if (count > 0) {
+                return count; // 必须封堵；有两个以上成五点时已经输了，任选其一
+            }
+        }
+
+        for (int cell = 0; cell < Position.CELLS; cell++) {
+            if (position.isCandidate(cell)) {
+                list[count] = cell;
+                value[count] = cell == ttMove
+                        ? Integer.MAX_VALUE
+                        : position.gain(cell, stone) + position.gain(cell, opponent) + noise(cell);
+                count++;
+            }
+        }
+        if (count == 0) {
+            for (int cell = 0; cell < Position.CELLS; cell++) {
+                if (position.isEmpty(cell)) {
+                    list[count] = cell;
+                    value[count] = 0;
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 一方可以一手恰好成五的点（长连不算），没有时返回 -1。五元组计数只用来快速排除没有四子的局面
+     */
+    private int findFive(int stone) {
+        if (position.hasFour(stone)) {
+            for (int cell = 0; cell < Position.CELLS; cell++) {
+                if (position.isCandidate(cell) && position.completesFive(cell, stone)) {
+                    return cell;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 辅助线程的排序扰动（0-7），只改变增益相近的着法的先后，主线程为 0
+     */
+    private int noise(int cell) {
+        return helperId == 0 ? 0 : ((cell + 1) * 0x9E3779B1 * helperId) >>> 29;
+    }
+
+    /**
+     * 把第 i 个及之后排序分数最高的着法换到第 i 位（只排实际会搜索的部分）
+     */
+    private void selectNext(int ply, int i, int count) {
+        int[] list = moves[ply];
+        int[] value = scores[ply];
+        int best = i;
+        for (int j = i + 1; j < count; j++) {
+            if (value[j] > value[best]) {
+                best = j;
+            }
+        }
+        if (best != i) {
+            int move = list[i];
+            list[i] = list[best];
+            list[best] = move;
+            int score = value[i];
+            value[i] = value[best];
+            value[best] = score;
+        }
+    }
+
+    /**
+     * 深度 1 总会搜完；之后每个节点检查节点预算，每 1024 个节点检查一次时间。停止通知随时生效
+     */
+    private boolean shouldStop() {
+        if (stopped) {
+            return true;
+        }
+        if (aborted) {
+            stopped = true;
+        } else if (iterationDepth > 1
+                && (nodes >= maxNodes || ((nodes & 1023) == 0 && System.nanoTime() >= deadline))) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    /**
+     * 胜负分数存入置换表时换算为相对当前节点的步数，取出时再换算回相对根节点
+     */
+    private static int toTable(int score, int ply) {
+        if (score >= WIN_THRESHOLD) {
+            return score + ply;
+        }
+        if (score <= -WIN_THRESHOLD) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= WIN_THRESHOLD) {
+            return score - ply;
+        }
+        if (score <= -WIN_THRESHOLD) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    private static long elapsedMs(long start) {
+        return (System.nanoTime() - start) / 1_000_000L;
+    }
+}
@@ -0,0 +1,57 @@
+package engine;
+
+/**
+ * 搜索限制：最大深度、时间预算和节点预算，三者取先到者；时间和节点为 0 表示不限制。
+ * 无论预算多小，深度 1 总会搜完，保证有着法可走
+ */
+public final class SearchLimits {
+
+    /** 不限深度时使用的最大迭代深度 */
+    public static final int MAX_DEPTH = Search.MAX_PLY - 1;
+
+    private final int maxDepth;
+    private final long timeMs;
+    private final long maxNodes;
+
+    public SearchLimits(int maxDepth, long timeMs, long maxNodes) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("搜索深度至少为 1: " + maxDepth);
+        }
+        this.maxDepth = Math.min(maxDepth, MAX_DEPTH);
+        this.timeMs = Math.max(0, timeMs);
+        this.maxNodes = Math.max(0, maxNodes);
+    }
+
+    /**
+     * 固定深度
+     */
+    public static SearchLimits depth(int maxDepth) {
+        return new SearchLimits(maxDepth, 0, 0);
+    }
+
+    /**
+     * 限时（毫秒）
+     */
+    public static SearchLimits time(long timeMs) {
+        return new SearchLimits(MAX_DEPTH, timeMs, 0);
+    }
+
+    /**
+     * 限节点数
+     */
+    public static SearchLimits nodes(long maxNodes) {
+        return new SearchLimits(MAX_DEPTH, 0, maxNodes);
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getTimeMs() {
+        return timeMs;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+}
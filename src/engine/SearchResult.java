@@ -0,0 +1,98 @@
+package engine;
+
+import common.Protocol;
+
+/**
+ * 搜索结果：最佳着法、分数（行棋方视角）、完成的深度、节点数、耗时和主要变例
+ */
+public final class SearchResult {
+
+    private final int move;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long elapsedMs;
+    private final int[] pv;
+
+    SearchResult(int move, int score, int depth, long nodes, long elapsedMs, int[] pv) {
+        this.move = move;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.elapsedMs = elapsedMs;
+        this.pv = pv;
+    }
+
+    /**
+     * 替换节点数（多线程搜索时汇总各线程的节点）
+     */
+    SearchResult withNodes(long totalNodes) {
+        return new SearchResult(move, score, depth, totalNodes, elapsedMs, pv);
+    }
+
+    /**
+     * 最佳着法的格子编号（x * 15 + y），棋盘已满时为 -1
+     */
+    public int getMove() {
+        return move;
+    }
+
+    public int getX() {
+        return move < 0 ? -1 : move / Protocol.BOARD_SIZE;
+    }
+
+    public int getY() {
+        return move < 0 ? -1 : move % Protocol.BOARD_SIZE;
+    }
+
+    /**
+     * 分数（行棋方视角），绝对值超过 {@link Search#WIN_THRESHOLD} 表示已算出胜负
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * 是否已算出必胜或必败
+     */
+    public boolean isDecisive() {
+        return Math.abs(score) >= Search.WIN_THRESHOLD;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    /**
+     * 主要变例（格子编号，第一个为最佳着法）副本
+     */
+    public int[] getPv() {
+        return pv.clone();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("着法=(").append(getX()).append(',').append(getY()).append(')')
+                .append(" 分数=").append(score)
+                .append(" 深度=").append(depth)
+                .append(" 节点=").append(nodes)
+                .append(" 耗时=").append(elapsedMs).append("ms")
+                .append(" 变例=");
+        for (int i = 0; i < pv.length; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append('(').append(pv[i] / Protocol.BOARD_SIZE).append(',').append(pv[i] % Protocol.BOARD_SIZE).append(')');
+        }
+        return sb.toString();
+    }
+}
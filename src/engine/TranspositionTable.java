@@ -0,0 +1,85 @@
+package engine;
+
+import java.util.Arrays;
+
+/**
+ * 置换表
+ * 固定大小，不加锁，多个搜索线程可以同时读写。每个条目占两个 long：
+ * 第一个存 key ^ data，第二个存 data。读到的两个值异或后等于局面哈希才算命中，
+ * 另一个线程写到一半（两个 long 来自不同的写入）时校验失败，按未命中处理，不会读到错位的着法和分数。
+ *
+ * data 布局（低位到高位）：分数 32 位 | 深度 8 位 | 类型 2 位 | 着法 8 位 | 有效位 1 位
+ */
+final class TranspositionTable {
+
+    static final int EXACT = 0;
+    static final int LOWER = 1; // 分数是下界（发生了 beta 截断）
+    static final int UPPER = 2; // 分数是上界（没有着法超过 alpha）
+
+    static final int NO_MOVE = 0xFF;
+
+    private static final long VALID = 1L << 50;
+
+    private final long[] table;
+    private final int mask;
+
+    /**
+     * @param sizeMb 占用内存（MB），向下取整到 2 的幂个条目
+     */
+    TranspositionTable(int sizeMb) {
+        long entries = Math.max(1L, (long) sizeMb << 20) / 16;
+        int size = Integer.highestOneBit((int) Math.min(entries, 1 << 26));
+        table = new long[size * 2];
+        mask = size - 1;
+    }
+
+    /**
+     * 查找局面，未命中返回 0
+     */
+    long probe(long key) {
+        int index = ((int) key & mask) << 1;
+        long data = table[index + 1];
+        if ((table[index] ^ data) != key || (data & VALID) == 0) {
+            return 0;
+        }
+        return data;
+    }
+
+    /**
+     * 写入局面：不同局面直接覆盖，同一局面只在搜索深度不低于原条目时覆盖
+     */
+    void store(long key, int move, int depth, int flag, int score) {
+        int index = ((int) key & mask) << 1;
+        long old = table[index + 1];
+        if ((table[index] ^ old) == key && (old & VALID) != 0 && depth < depth(old)) {
+            return;
+        }
+        long data = (score & 0xFFFFFFFFL)
+                | (long) depth << 32
+                | (long) flag << 40
+                | (long) (move & 0xFF) << 42
+                | VALID;
+        table[index] = key ^ data;
+        table[index + 1] = data;
+    }
+
+    void clear() {
+        Arrays.fill(table, 0);
+    }
+
+    static int score(long data) {
+        return (int) data;
+    }
+
+    static int depth(long data) {
+        return (int) (data >>> 32) & 0xFF;
+    }
+
+    static int flag(long data) {
+        return (int) (data >>> 40) & 0x3;
+    }
+
+    static int move(long data) {
+        return (int) (data >>> 42) & 0xFF;
+    }
+}
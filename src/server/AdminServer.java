@@ -0,0 +1,313 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * 管理端统计接口
+ * 只监听本机回环地址，GET /stats 返回 JSON 格式的实时统计：连接、按状态分类的房间及每个房间的人数、
+ * 发送队列和房间分片队列深度、消息速率和各项耗时分位数。
+ *
+ * 统计数据只读取并发容器、原子计数器和房间的 volatile 状态快照，不获取 Server 或 GameSession 的锁，
+ * 频繁查询也不会影响对局
+ */
+public class AdminServer {
+
+    private final Server server;
+    private final int port;
+    private final long startTime = System.currentTimeMillis();
+    private HttpServer httpServer;
+
+    // 上一次查询时的累计值，用于计算两次查询之间的速率（只在管理端线程中访问）
+    private long lastSampleNanos = System.nanoTime();
+    private long lastInbound;
+    private long lastOutbound;
+    private long lastOutboundBytes;
+
+    public AdminServer(Server server, int port) {
+        this.server = server;
+        this.port = port;
+    }
+
+    /**
+     * 启动管理端（单个后台线程处理请求）
+     */
+    public void start() throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        httpServer.createContext("/stats", this::handleStats);
+        httpServer.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "admin-http");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        httpServer.start();
+        Log.info("管理端已启动，统计接口: http://127.0.0.1:" + port + "/stats");
+    }
+
+    /**
+     * 停止管理端
+     */
+    public void stop() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = buildStats().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (RuntimeException e) {
+            Log.error("管理端统计异常: " + e.getMessage(), e);
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * 生成统计 JSON
+     */
+    String buildStats() {
+        StringBuilder json = new StringBuilder(4096);
+        json.append('{');
+        field(json, "uptimeMs", System.currentTimeMillis() - startTime).append(',');
+        field(json, "transport", server.getConfig().getTransport()).append(',');
+        field(json, "roomExecution", server.getConfig().getRoomExecution()).append(',');
+        appendConnections(json);
+        json.append(',');
+        appendRooms(json);
+        json.append(',');
+        appendRoomShards(json);
+        json.append(',');
+        appendRates(json);
+        json.append(',');
+        appendLatency(json);
+        json.append(',');
+        appendValues(json, "counters", Metrics.counterValues());
+        json.append(',');
+        appendValues(json, "gauges", Metrics.gaugeValues());
+        json.append(',');
+        field(json, "logDropped", Log.getDropped());
+        json.append('}');
+        return json.toString();
+    }
+
+    private void appendConnections(StringBuilder json) {
+        int online = 0;
+        long pending = 0;
+        int maxPending = 0;
+        for (ClientHandler client : server.getClientHandlers()) {
+            int queued = client.getPendingOutbound();
+            online++;
+            pending += queued;
+            maxPending = Math.max(maxPending, queued);
+        }
+        key(json, "connections").append('{');
+        field(json, "online", online).append(',');
+        field(json, "lobbySubscribers", server.getLobbyPublisher().getSubscriberCount()).append(',');
+        field(json, "outboundQueued", pending).append(',');
+        field(json, "outboundQueuedMax", maxPending);
+        json.append('}');
+    }
+
+    private void appendRooms(StringBuilder json) {
+        int openSeat = 0;
+        int waitingOpponent = 0;
+        int ready = 0;
+        int inBattle = 0;
+        StringBuilder list = new StringBuilder();
+        for (GameSession session : server.getGameSessions()) {
+            GameSession.Stats stats = session.getStats();
+            if (stats == null) {
+                continue;
+            }
+            if (stats.isInBattle()) {
+                inBattle++;
+            } else if (stats.getJoinState() == JoinableRoomIndex.STATE_SPECTATE_ONLY) {
+                ready++;
+            } else if (stats.getJoinState() == JoinableRoomIndex.STATE_WAITING_OPPONENT) {
+                waitingOpponent++;
+            } else {
+                openSeat++;
+            }
+            if (list.length() > 0) {
+                list.append(',');
+            }
+            list.append('{');
+            field(list, "id", session.getRoomId()).append(',');
+            field(list, "status", stats.getStatus()).append(',');
+            field(list, "members", stats.getMembers()).append(',');
+            field(list, "spectators", stats.getSpectators()).append(',');
+            field(list, "boardSequence", stats.getBoardSequence());
+            list.append('}');
+        }
+        key(json, "rooms").append('{');
+        field(json, "total", openSeat + waitingOpponent + ready + inBattle).append(',');
+        key(json, "byState").append('{');
+        field(json, "openSeat", openSeat).append(',');
+        field(json, "waitingOpponent", waitingOpponent).append(',');
+        field(json, "ready", ready).append(',');
+        field(json, "inBattle", inBattle);
+        json.append("},");
+        key(json, "list").append('[').append(list).append("]}");
+    }
+
+    private void appendRoomShards(StringBuilder json) {
+        key(json, "roomShards").append('[');
+        RoomExecutors executors = server.getRoomExecutors();
+        if (executors != null) {
+            for (int i = 0; i < executors.getShardCount(); i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append('{');
+                field(json, "rooms", executors.getRoomCount(i)).append(',');
+                field(json, "queueDepth", executors.getQueueDepth(i)).append(',');
+                field(json, "processed", executors.getProcessed(i));
+                json.append('}');
+            }
+        }
+        json.append(']');
+    }
+
+    /**
+     * 消息速率：与上一次查询相比的每秒增量（第一次查询时为启动以来的平均值）
+     */
+    private void appendRates(StringBuilder json) {
+        long inbound = 0;
+        for (Histogram histogram : Metrics.histograms().values()) {
+            if (histogram.getName().startsWith("command.")) {
+                inbound += histogram.snapshot().getCount();
+            }
+        }
+        long outbound = Metrics.OUTBOUND_MESSAGES.sum();
+        long outboundBytes = Metrics.OUTBOUND_BYTES.sum();
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-3, (now - lastSampleNanos) / 1e9);
+
+        key(json, "rates").append('{');
+        field(json, "windowSeconds", round(seconds)).append(',');
+        field(json, "inboundPerSecond", round((inbound - lastInbound) / seconds)).append(',');
+        field(json, "outboundPerSecond", round((outbound - lastOutbound) / seconds)).append(',');
+        field(json, "outboundBytesPerSecond", round((outboundBytes - lastOutboundBytes) / seconds));
+        json.append('}');
+
+        lastSampleNanos = now;
+        lastInbound = inbound;
+        lastOutbound = outbound;
+        lastOutboundBytes = outboundBytes;
+    }
+
+    /**
+     * 各直方图的分位数，耗时类单位为微秒
+     */
+    private void appendLatency(StringBuilder json) {
+        key(json, "histograms").append('{');
+        boolean first = true;
+        for (Histogram histogram : Metrics.histograms().values()) {
+            Histogram.Snapshot snapshot = histogram.snapshot();
+            if (snapshot.getCount() == 0) {
+                continue;
+            }
+            double scale = histogram.isNanos() ? 1000.0 : 1.0;
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            key(json, histogram.getName()).append('{');
+            field(json, "unit", histogram.isNanos() ? "us" : "count").append(',');
+            field(json, "count", snapshot.getCount()).append(',');
+            field(json, "mean", round(snapshot.getMean() / scale)).append(',');
+            field(json, "p50", round(snapshot.getValueAtQuantile(0.50) / scale)).append(',');
+            field(json, "p90", round(snapshot.getValueAtQuantile(0.90) / scale)).append(',');
+            field(json, "p99", round(snapshot.getValueAtQuantile(0.99) / scale)).append(',');
+            field(json, "p999", round(snapshot.getValueAtQuantile(0.999) / scale)).append(',');
+            field(json, "max", round(snapshot.getMax() / scale));
+            json.append('}');
+        }
+        json.append('}');
+    }
+
+    private void appendValues(StringBuilder json, String name, Map<String, Long> values) {
+        key(json, name).append('{');
+        boolean first = true;
+        for (Map.Entry<String, Long> entry : values.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            field(json, entry.getKey(), entry.getValue());
+        }
+        json.append('}');
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private static StringBuilder key(StringBuilder json, String name) {
+        return string(json, name).append(':');
+    }
+
+    private static StringBuilder field(StringBuilder json, String name, long value) {
+        return key(json, name).append(value);
+    }
+
+    private static StringBuilder field(StringBuilder json, String name, double value) {
+        return key(json, name).append(value);
+    }
+
+    private static StringBuilder field(StringBuilder json, String name, String value) {
+        return string(key(json, name), value);
+    }
+
+    /**
+     * 输出 JSON 字符串（转义引号、反斜杠和控制字符）
+     */
+    private static StringBuilder string(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        return json.append('"');
+    }
+}
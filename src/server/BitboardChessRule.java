@@ -0,0 +1,172 @@
+package server;
+
+import common.Protocol;
+import java.util.Arrays;
+
+/**
+ * 位棋盘规则引擎
+ * 每种颜色保存四组 15 位的线掩码：按行、按列、主对角线和副对角线各一组，落子时同时更新四个投影。
+ * 判定胜负只需取出经过落子点的四条线，用移位和前导零/尾随零计数直接得到连子长度，不再逐格探测和检查边界。
+ *
+ * 与 {@link ChessRule} 的规则完全一致：任意一条线恰好五子获胜，长连（六子及以上）不算。
+ * 落子顺序即走子栈，makeMove/unmakeMove 同时增量维护 Zobrist 哈希
+ */
+public class BitboardChessRule implements RuleEngine {
+
+    private static final int SIZE = Protocol.BOARD_SIZE;
+    private static final int DIAGONALS = SIZE * 2 - 1;
+
+    // 下标 0 为黑棋，1 为白棋
+    private final int[][] rows = new int[2][SIZE]; // rows[c][y] 的第 x 位
+    private final int[][] cols = new int[2][SIZE]; // cols[c][x] 的第 y 位
+    private final int[][] diagonals = new int[2][DIAGONALS]; // 主对角线（x - y 相同），diagonals[c][x - y + 14] 的第 x 位
+    private final int[][] antiDiagonals = new int[2][DIAGONALS]; // 副对角线（x + y 相同），antiDiagonals[c][x + y] 的第 x 位
+    private final int[] moveHistory = new int[SIZE * SIZE]; // 落子顺序（格子编号 x * 15 + y）
+    private int moveCount;
+    private long hash; // 局面的 Zobrist 哈希
+
+    @Override
+    public boolean isEmpty(int x, int y) {
+        if (!isValidPosition(x, y)) {
+            return false;
+        }
+        return ((rows[0][y] | rows[1][y]) & (1 << x)) == 0;
+    }
+
+    @Override
+    public boolean isValidPosition(int x, int y) {
+        return x >= 0 && x < SIZE && y >= 0 && y < SIZE;
+    }
+
+    @Override
+    public boolean placeStone(int x, int y, String color) {
+        return makeMove(x, y, color.equals(Protocol.BLACK) ? 1 : 2);
+    }
+
+    @Override
+    public boolean makeMove(int x, int y, int stone) {
+        if (!isEmpty(x, y) || stone < 1 || stone > 2) {
+            return false;
+        }
+
+        int c = stone - 1;
+        int cell = x * SIZE + y;
+        rows[c][y] |= 1 << x;
+        cols[c][x] |= 1 << y;
+        diagonals[c][x - y + SIZE - 1] |= 1 << x;
+        antiDiagonals[c][x + y] |= 1 << x;
+        moveHistory[moveCount] = cell;
+        moveCount++;
+        hash ^= Zobrist.key(stone, cell);
+        return true;
+    }
+
+    @Override
+    public int unmakeMove() {
+        if (moveCount == 0) {
+            return -1;
+        }
+        moveCount--;
+        int cell = moveHistory[moveCount];
+        int x = cell / SIZE;
+        int y = cell % SIZE;
+        int c = (rows[0][y] & (1 << x)) != 0 ? 0 : 1;
+        rows[c][y] &= ~(1 << x);
+        cols[c][x] &= ~(1 << y);
+        diagonals[c][x - y + SIZE - 1] &= ~(1 << x);
+        antiDiagonals[c][x + y] &= ~(1 << x);
+        hash ^= Zobrist.key(c + 1, cell);
+        return cell;
+    }
+
+    @Override
+    public long getHash() {
+        return hash;
+    }
+
+    @Override
+    public boolean checkWin(int x, int y) {
+        int stone = getStone(x, y);
+        if (stone <= 0) {
+            return false;
+        }
+
+        int c = stone - 1;
+        return runLength(rows[c][y], x) == 5                           // 横向
+                || runLength(cols[c][x], y) == 5                       // 纵向
+                || runLength(diagonals[c][x - y + SIZE - 1], x) == 5   // 主对角线
+                || runLength(antiDiagonals[c][x + y], x) == 5;         // 副对角线
+    }
+
+    /**
+     * 线掩码中经过第 bit 位的连续 1 的长度（第 bit 位必须为 1）
+     * 向高位：右移后数尾随的 1；向低位：左移到最高位后数前导的 1
+     */
+    static int runLength(int line, int bit) {
+        int up = Integer.numberOfTrailingZeros(~(line >>> bit));
+        int down = Integer.numberOfLeadingZeros(~(line << (31 - bit)));
+        return up + down - 1;
+    }
+
+    @Override
+    public boolean checkDraw() {
+        return moveCount >= SIZE * SIZE;
+    }
+
+    @Override
+    public int[][] getBoardState() {
+        int[][] board = new int[SIZE][SIZE];
+        for (int y = 0; y < SIZE; y++) {
+            int black = rows[0][y];
+            int white = rows[1][y];
+            for (int x = 0; x < SIZE; x++) {
+                int bit = 1 << x;
+                if ((black & bit) != 0) {
+                    board[x][y] = 1;
+                } else if ((white & bit) != 0) {
+                    board[x][y] = 2;
+                }
+            }
+        }
+        return board;
+    }
+
+    @Override
+    public int[] getMoveHistory() {
+        int[] copy = new int[moveCount];
+        System.arraycopy(moveHistory, 0, copy, 0, moveCount);
+        return copy;
+    }
+
+    @Override
+    public int getStone(int x, int y) {
+        if (!isValidPosition(x, y)) {
+            return -1;
+        }
+        int bit = 1 << x;
+        if ((rows[0][y] & bit) != 0) {
+            return 1;
+        }
+        if ((rows[1][y] & bit) != 0) {
+            return 2;
+        }
+        return 0;
+    }
+
+    @Override
+    public void reset() {
+        for (int c = 0; c < 2; c++) {
+            Arrays.fill(rows[c], 0);
+            Arrays.fill(cols[c], 0);
+            Arrays.fill(diagonals[c], 0);
+            Arrays.fill(antiDiagonals[c], 0);
+        }
+        moveCount = 0;
+        hash = 0;
+    }
+
+    @Override
+    public int getMoveCount() {
+        return moveCount;
+    }
+}
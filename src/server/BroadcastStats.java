@@ -0,0 +1,63 @@
+package server;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 广播统计
+ * 记录广播次数、编码字节数（文本协议）与实际进入各连接发送队列的字节数，
+ * 两者之比即平均每次广播的有效扇出倍数。
+ * 发送字节按各连接实际入队的编码计（二进制帧按帧长），被丢弃的低优先级消息和因队列满而断开的连接不计入
+ */
+public final class BroadcastStats {
+
+    private static final LongAdder broadcasts = new LongAdder();
+    private static final LongAdder recipients = new LongAdder();
+    private static final LongAdder bytesEncoded = new LongAdder();
+    private static final LongAdder bytesSent = new LongAdder();
+
+    private BroadcastStats() {
+    }
+
+    /**
+     * 记录一次广播，同时记录扇出和耗时直方图
+     *
+     * @param message        已编码的消息
+     * @param recipientCount 接收者数量
+     * @param sentBytes      各接收者实际入队的字节数之和
+     * @param startNanos     开始写入发送队列时的 System.nanoTime()
+     */
+    public static void record(OutboundMessage message, int recipientCount, long sentBytes, long startNanos) {
+        Metrics.BROADCAST_TIME.recordSince(startNanos);
+        Metrics.BROADCAST_FANOUT.record(recipientCount);
+        broadcasts.increment();
+        recipients.add(recipientCount);
+        bytesEncoded.add(message.length());
+        bytesSent.add(sentBytes);
+    }
+
+    public static long getBroadcasts() {
+        return broadcasts.sum();
+    }
+
+    public static long getRecipients() {
+        return recipients.sum();
+    }
+
+    public static long getBytesEncoded() {
+        return bytesEncoded.sum();
+    }
+
+    public static long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    /**
+     * 状态摘要（用于定时打印）
+     */
+    public static String summary() {
+        long encoded = getBytesEncoded();
+        long sent = getBytesSent();
+        return String.format("广播: %d 次 | 编码: %d 字节 | 发送: %d 字节 | 扇出: %.1f",
+                getBroadcasts(), encoded, sent, encoded == 0 ? 0.0 : (double) sent / encoded);
+    }
+}
@@ -5,15 +5,47 @@ import common.Protocol;
 /**
  * 五子棋游戏规则引擎
  * 负责落子校验、胜负判定等核心逻辑
+ * 使用二维数组保存棋盘，胜负判定从落子点向四个方向逐格计数
+ *
+ * 可选开启连子长度表：每个方向上，每段同色连子的两个端点记录这段连子的长度。
+ * 落子时只需读取两侧相邻端点的长度并改写合并后的两个端点，撤销时按落子时记下的两侧长度恢复，都是 O(1)；
+ * 对最后一手的胜负判定变为查表，适合机器人、分析和模拟等需要大量落子和撤销的场景。
+ *
+ * 落子顺序本身就是固定大小的走子栈，makeMove/unmakeMove 成对使用，同时增量维护局面的 Zobrist 哈希，
+ * 落子、撤销和重置都不分配对象
  */
-public class ChessRule {
+public class ChessRule implements RuleEngine {
+    
+    private static final int SIZE = Protocol.BOARD_SIZE;
+    
+    // 四个方向：横、竖、主对角线、副对角线
+    private static final int[] DX = {1, 0, 1, 1};
+    private static final int[] DY = {0, 1, 1, -1};
     
     private int[][] board; // 棋盘状态：0-空，1-黑棋，2-白棋
     private int moveCount; // 已落子数量
+    private int[] moveHistory; // 落子顺序（格子编号 x * 15 + y），即走子栈
+    private long hash; // 局面的 Zobrist 哈希
+    
+    // 连子长度表（未开启时为空）：runs[方向][格子编号]，只保证连子端点和最后一手的值准确
+    private int[][] runs;
+    private int[] runUndo; // 每一手落子时各方向两侧的连子长度，每个方向 8 位（低 4 位左侧，高 4 位右侧）
     
     public ChessRule() {
-        board = new int[Protocol.BOARD_SIZE][Protocol.BOARD_SIZE];
+        this(false);
+    }
+    
+    /**
+     * @param trackRuns 是否维护连子长度表
+     */
+    public ChessRule(boolean trackRuns) {
+        board = new int[SIZE][SIZE];
+        moveHistory = new int[SIZE * SIZE];
         moveCount = 0;
+        if (trackRuns) {
+            runs = new int[4][SIZE * SIZE];
+            runUndo = new int[SIZE * SIZE];
+        }
     }
     
     /**
@@ -41,16 +73,104 @@ public class ChessRule {
      * @return 是否落子成功
      */
     public boolean placeStone(int x, int y, String color) {
-        if (!isValidPosition(x, y) || !isEmpty(x, y)) {
+        return makeMove(x, y, color.equals(Protocol.BLACK) ? 1 : 2);
+    }
+    
+    /**
+     * 按棋子值落子并压入走子栈
+     * @param stone 1-黑棋，2-白棋
+     * @return 是否落子成功
+     */
+    public boolean makeMove(int x, int y, int stone) {
+        if (!isEmpty(x, y) || stone < 1 || stone > 2) {
             return false;
         }
         
-        int stoneValue = color.equals(Protocol.BLACK) ? 1 : 2;
-        board[x][y] = stoneValue;
+        int cell = x * SIZE + y;
+        board[x][y] = stone;
+        if (runs != null) {
+            runUndo[moveCount] = addRuns(x, y, stone);
+        }
+        moveHistory[moveCount] = cell;
         moveCount++;
+        hash ^= Zobrist.key(stone, cell);
         return true;
     }
     
+    /**
+     * 撤销最后一步落子，恢复棋盘、连子长度表和哈希
+     * @return 被撤销的格子编号，棋盘为空时返回 -1
+     */
+    public int unmakeMove() {
+        if (moveCount == 0) {
+            return -1;
+        }
+        moveCount--;
+        int cell = moveHistory[moveCount];
+        int x = cell / SIZE;
+        int y = cell % SIZE;
+        hash ^= Zobrist.key(board[x][y], cell);
+        board[x][y] = 0;
+        if (runs != null) {
+            removeRuns(x, y, runUndo[moveCount]);
+        }
+        return cell;
+    }
+    
+    /**
+     * 当前局面的 Zobrist 哈希
+     */
+    public long getHash() {
+        return hash;
+    }
+    
+    /**
+     * 落子后更新连子长度表
+     * 新棋子两侧的相邻同色棋子一定是各自连子的端点，端点上的长度准确，合并后改写新的两个端点和落子点
+     * @return 各方向两侧原有的连子长度（撤销时使用）
+     */
+    private int addRuns(int x, int y, int stone) {
+        int cell = x * SIZE + y;
+        int undo = 0;
+        for (int d = 0; d < 4; d++) {
+            int[] run = runs[d];
+            int step = DX[d] * SIZE + DY[d];
+            int left = isSameStone(x - DX[d], y - DY[d], stone) ? run[cell - step] : 0;
+            int right = isSameStone(x + DX[d], y + DY[d], stone) ? run[cell + step] : 0;
+            int total = left + 1 + right;
+            run[cell - left * step] = total;
+            run[cell + right * step] = total;
+            run[cell] = total;
+            undo |= (left | right << 4) << (d * 8);
+        }
+        return undo;
+    }
+    
+    /**
+     * 撤销最后一手后恢复连子长度表：合并的连子重新分成左右两段，恢复两段的端点
+     */
+    private void removeRuns(int x, int y, int undo) {
+        int cell = x * SIZE + y;
+        for (int d = 0; d < 4; d++) {
+            int[] run = runs[d];
+            int step = DX[d] * SIZE + DY[d];
+            int left = (undo >>> (d * 8)) & 0xF;
+            int right = (undo >>> (d * 8 + 4)) & 0xF;
+            if (left > 0) {
+                run[cell - left * step] = left;
+                run[cell - step] = left;
+            }
+            if (right > 0) {
+                run[cell + step] = right;
+                run[cell + right * step] = right;
+            }
+        }
+    }
+    
+    private boolean isSameStone(int x, int y, int stone) {
+        return isValidPosition(x, y) && board[x][y] == stone;
+    }
+    
     /**
      * 检查是否获胜（五子连线）
      * @param x 最后落子的横坐标
@@ -64,6 +184,12 @@ public class ChessRule {
         
         int stone = board[x][y];
         
+        // 最后一手：直接查连子长度表
+        if (runs != null && moveHistory[moveCount - 1] == x * SIZE + y) {
+            int cell = x * SIZE + y;
+            return runs[0][cell] == 5 || runs[1][cell] == 5 || runs[2][cell] == 5 || runs[3][cell] == 5;
+        }
+        
         // 检查四个方向：横、竖、主对角线、副对角线
         return checkDirection(x, y, stone, 1, 0) ||  // 横向
                checkDirection(x, y, stone, 0, 1) ||  // 纵向
@@ -124,6 +250,16 @@ public class ChessRule {
         return copy;
     }
     
+    /**
+     * 获取落子顺序（用于同步）
+     * @return 按落子先后排列的格子编号副本
+     */
+    public int[] getMoveHistory() {
+        int[] copy = new int[moveCount];
+        System.arraycopy(moveHistory, 0, copy, 0, moveCount);
+        return copy;
+    }
+    
     /**
      * 获取指定位置的棋子
      * @return 0-空，1-黑棋，2-白棋
@@ -139,8 +275,14 @@ public class ChessRule {
      * 重置棋盘
      */
     public void reset() {
-        board = new int[Protocol.BOARD_SIZE][Protocol.BOARD_SIZE];
+        // 按走子栈清除棋子，不重新分配棋盘
+        for (int i = 0; i < moveCount; i++) {
+            int cell = moveHistory[i];
+            board[cell / SIZE][cell % SIZE] = 0;
+        }
         moveCount = 0;
+        hash = 0;
+        // 连子长度表无需清空：只会读取本局已有棋子所在连子的端点，这些位置在本局落子时都已重新写入
     }
     
     /**
@@ -1,156 +1,269 @@
 package server;
 
+import common.BinaryProtocol;
+import common.FrameDecoder;
+import common.MessageParser;
 import common.Protocol;
-import java.io.*;
-import java.net.Socket;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 客户端处理器
- * 负责单个客户端的消息读取、发送和指令解析
+ * 负责单个客户端的指令解析和消息发送
+ * 阻塞模式下由独立线程运行 run() 读取消息，NIO 模式下由事件循环分帧后直接回调
  */
-public class ClientHandler implements Runnable {
+public class ClientHandler implements Runnable, FrameDecoder.Listener {
 
-    private Socket socket;
+    private Connection connection;
+    private SocketConnection socketConnection; // 仅阻塞模式使用
     private Server server;
-    private BufferedReader reader;
-    private PrintWriter writer;
     private String username;
     private String role; // PLAYER_BLACK, PLAYER_WHITE, SPECTATOR
-    private GameSession gameSession;
+    private volatile GameSession gameSession;
     private volatile boolean running;
+    private AtomicBoolean disconnected = new AtomicBoolean(false);
+    private volatile long lastReadNanos = System.nanoTime(); // 最后一次收到消息的时间（心跳检查用）
+    private volatile boolean heartbeatEnabled; // 登录时声明支持心跳（HB1）
+    private MessageParser parser = new MessageParser(); // 同一连接的消息总在同一线程上顺序处理
+    private final RateLimiter rateLimiter;
 
-    public ClientHandler(Socket socket, Server server) {
-        this.socket = socket;
+    /**
+     * 阻塞模式：由线程池线程调用 run() 读取消息
+     */
+    public ClientHandler(SocketConnection connection, Server server) {
+        this((Connection) connection, server);
+        this.socketConnection = connection;
+    }
+
+    /**
+     * 非阻塞模式：由传输层在收到完整消息时回调 FrameDecoder.Listener
+     */
+    public ClientHandler(Connection connection, Server server) {
+        this.connection = connection;
         this.server = server;
         this.running = true;
-
-        try {
-            // 使用 UTF-8 编码
-            this.reader = new BufferedReader(
-                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
-            this.writer = new PrintWriter(
-                    new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8),
-                    true // 自动刷新
-            );
-        } catch (IOException e) {
-            System.err.println("创建客户端处理器失败: " + e.getMessage());
-        }
+        this.rateLimiter = new RateLimiter(server.getConfig().getRateLimits());
     }
 
     @Override
     public void run() {
         try {
-            String message;
-            while (running && (message = reader.readLine()) != null) {
-                handleMessage(message);
+            int length;
+            VirtualThreadMonitor monitor = server.getVirtualThreadMonitor();
+            while (running && (length = socketConnection.read()) >= 0) {
+                if (monitor != null) {
+                    monitor.mounted();
+                    try {
+                        socketConnection.dispatch(length, this);
+                    } finally {
+                        monitor.unmounted();
+                    }
+                } else {
+                    socketConnection.dispatch(length, this);
+                }
             }
         } catch (IOException e) {
             if (running) {
-                System.err.println("客户端 " + username + " 连接异常: " + e.getMessage());
+                Log.error("客户端 " + username + " 连接异常: " + e.getMessage());
             }
         } finally {
             disconnect();
         }
     }
 
+    @Override
+    public void onTextMessage(String message) {
+        lastReadNanos = System.nanoTime();
+        if (running) {
+            handleMessage(message);
+        }
+    }
+
+    /**
+     * 处理二进制帧：按操作码直接分派，负载字段由解析器在字节上读取，不还原为文本；落子走紧凑编码的快速路径
+     */
+    @Override
+    public void onBinaryFrame(int opcode, byte[] payload, int length) {
+        lastReadNanos = System.nanoTime();
+        if (!running) {
+            return;
+        }
+        if (opcode == BinaryProtocol.OP_MOVE && length == 1) {
+            if (!admit(Protocol.MOVE)) {
+                return;
+            }
+            long start = System.nanoTime();
+            int cell = payload[0] & 0xFF;
+            handleMove(BinaryProtocol.cellX(cell), BinaryProtocol.cellY(cell));
+            Metrics.commandTimer(Protocol.MOVE).recordSince(start);
+            return;
+        }
+        String command = BinaryProtocol.commandOf(opcode);
+        if (command == null) {
+            sendMessage(Protocol.buildMessage(Protocol.ERROR, "未知指令: " + opcode));
+            return;
+        }
+        dispatch(opcode, command, parser.reset(payload, 0, length));
+    }
+
     /**
-     * 处理客户端消息
+     * 处理客户端文本消息
      */
-    private void handleMessage(String message) {
-        String[] parts = Protocol.parseMessage(message);
-        if (parts.length == 0) {
+    void handleMessage(String message) {
+        MessageParser parts = parser.reset(message);
+        String command = parts.nextCommand(Protocol.CLIENT_COMMANDS);
+        if (command == null) {
             return;
         }
+        dispatch(BinaryProtocol.opcodeOf(command), command, parts);
+    }
 
-        String command = parts[0];
+    /**
+     * 按操作码分派指令（文本和二进制共用）
+     *
+     * @param parts 指令名之后的字段
+     */
+    private void dispatch(int opcode, String command, MessageParser parts) {
+        if (!admit(command)) {
+            return;
+        }
 
+        long start = System.nanoTime();
         try {
-            switch (command) {
-                case Protocol.LOGIN:
+            switch (opcode) {
+                case BinaryProtocol.OP_LOGIN:
                     handleLogin(parts);
                     break;
 
-                case Protocol.MOVE:
+                case BinaryProtocol.OP_MOVE:
                     handleMove(parts);
                     break;
 
-                case Protocol.CHAT:
+                case BinaryProtocol.OP_CHAT:
                     handleChat(parts);
                     break;
 
-                case Protocol.SIT_BLACK:
+                case BinaryProtocol.OP_SIT_BLACK:
                     handleSitBlack();
                     break;
 
-                case Protocol.SIT_WHITE:
+                case BinaryProtocol.OP_SIT_WHITE:
                     handleSitWhite();
                     break;
 
-                case Protocol.SIT_SPECTATOR:
+                case BinaryProtocol.OP_SIT_SPECTATOR:
                     handleSitSpectator();
                     break;
 
-                case Protocol.BATTLE_INVITE:
+                case BinaryProtocol.OP_BATTLE_INVITE:
                     handleBattleInvite();
                     break;
 
-                case Protocol.BATTLE_RESPONSE:
+                case BinaryProtocol.OP_BATTLE_RESPONSE:
                     handleBattleResponse(parts);
                     break;
 
-                case Protocol.QUIT:
+                case BinaryProtocol.OP_QUIT:
                     handleQuit();
                     break;
 
-                case Protocol.READY_FOR_NEXT:
+                case BinaryProtocol.OP_READY_FOR_NEXT:
                     handleReadyForNext();
                     break;
 
-                case Protocol.SPECTATE:
+                case BinaryProtocol.OP_SPECTATE:
                     handleSpectate(parts);
                     break;
 
-                case Protocol.CREATE_ROOM:
+                case BinaryProtocol.OP_CREATE_ROOM:
                     handleCreateRoom();
                     break;
 
-                case Protocol.QUICK_JOIN:
+                case BinaryProtocol.OP_QUICK_JOIN:
                     handleQuickJoin();
                     break;
 
-                case Protocol.JOIN_ROOM_BY_ID:
+                case BinaryProtocol.OP_JOIN_ROOM_BY_ID:
                     handleJoinRoomById(parts);
                     break;
 
-                case Protocol.GET_ROOM_LIST:
-                    handleGetRoomList();
+                case BinaryProtocol.OP_GET_ROOM_LIST:
+                    handleGetRoomList(parts);
                     break;
 
-                case Protocol.REQUEST_ROOM_STATE:
+                case BinaryProtocol.OP_REQUEST_ROOM_STATE:
                     handleRequestRoomState();
                     break;
 
+                case BinaryProtocol.OP_LOBBY_SUBSCRIBE:
+                    handleLobbySubscribe(parts);
+                    break;
+
+                case BinaryProtocol.OP_LOBBY_UNSUBSCRIBE:
+                    server.getLobbyPublisher().unsubscribe(this);
+                    break;
+
+                case BinaryProtocol.OP_PING:
+                    sendMessage(Protocol.buildMessage(Protocol.PONG));
+                    break;
+
+                case BinaryProtocol.OP_PONG:
+                    // 收到消息时已更新活跃时间，无需其他处理
+                    break;
+
                 default:
                     sendMessage(Protocol.buildMessage(Protocol.ERROR, "未知指令: " + command));
             }
         } catch (Exception e) {
-            System.err.println("处理消息异常: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("处理消息异常: " + e.getMessage(), e);
             sendMessage(Protocol.buildMessage(Protocol.ERROR, "服务器处理异常"));
+        } finally {
+            Metrics.commandTimer(command).recordSince(start);
         }
     }
 
+    /**
+     * 限流检查：超限的指令直接丢弃，违规次数达到阈值时先警告，持续超限则断开连接
+     *
+     * @return 是否继续处理该指令
+     */
+    private boolean admit(String command) {
+        switch (rateLimiter.acquire(command)) {
+            case RateLimiter.ALLOW:
+                return true;
+
+            case RateLimiter.WARN:
+                Log.warn("客户端 " + describe() + " 指令过于频繁: " + command);
+                sendMessage(Protocol.buildMessage(Protocol.ERROR, "操作过于频繁，请稍后再试"));
+                return false;
+
+            case RateLimiter.DISCONNECT:
+                Log.warn("客户端 " + describe() + " 持续超出指令频率限制（违规 " + rateLimiter.getViolations()
+                        + " 次），断开连接");
+                disconnect();
+                return false;
+
+            default:
+                return false;
+        }
+    }
+
+    private String describe() {
+        return username != null ? username : connection.getRemoteAddress();
+    }
+
     /**
      * 处理登录请求
      */
-    private void handleLogin(String[] parts) {
-        if (parts.length < 2) {
+    private void handleLogin(MessageParser parts) {
+        if (!parts.hasMore()) {
             sendMessage(Protocol.buildMessage(Protocol.LOGIN_FAIL, "用户名不能为空"));
             return;
         }
 
-        String requestedUsername = parts[1].trim();
+        String requestedUsername = parts.nextString().trim();
 
         // 检查用户名是否为空
         if (requestedUsername.isEmpty()) {
@@ -158,68 +271,108 @@ public class ClientHandler implements Runnable {
             return;
         }
 
-        // 检查用户名是否已存在
-        if (server.isUsernameExists(requestedUsername)) {
+        // 同一连接不能重复登录，否则旧用户名会一直占用
+        if (username != null) {
+            sendMessage(Protocol.buildMessage(Protocol.LOGIN_FAIL, "已经登录"));
+            return;
+        }
+
+        // 原子地占用用户名，并发登录同名用户时只有一个成功
+        this.username = requestedUsername;
+        if (!server.addClient(this)) {
+            this.username = null;
             sendMessage(Protocol.buildMessage(Protocol.LOGIN_FAIL, "用户名已存在"));
             return;
         }
 
         // 登录成功
-        this.username = requestedUsername;
-        sendMessage(Protocol.buildMessage(Protocol.LOGIN_SUCCESS, username));
 
-        // 加入服务器
-        server.addClient(this);
+        // 登录能力协商：用户名之后的字段为客户端支持的能力，服务器在应答中回显接受的能力
+        boolean useBinary = false;
+        boolean useHeartbeat = false;
+        while (parts.hasMore()) {
+            String capability = parts.nextString();
+            if (Protocol.BINARY_V1.equals(capability)) {
+                useBinary = true;
+            } else if (Protocol.HEARTBEAT_V1.equals(capability)) {
+                useHeartbeat = true;
+            }
+        }
 
-        System.out.println("用户 " + username + " 登录成功");
+        List<String> reply = new ArrayList<>(4);
+        reply.add(Protocol.LOGIN_SUCCESS);
+        reply.add(username);
+        if (useBinary) {
+            reply.add(Protocol.BINARY_V1);
+        }
+        if (useHeartbeat) {
+            reply.add(Protocol.HEARTBEAT_V1);
+        }
+        // 二进制协议：以文本回复确认，之后双向切换为二进制帧
+        sendMessage(Protocol.buildMessage(reply.toArray(new String[0])));
+        if (useBinary) {
+            connection.setBinary(true);
+        }
+        // 心跳：只有声明支持的客户端才会收到 PING，旧版文本客户端按较长的空闲超时回收
+        heartbeatEnabled = useHeartbeat;
+
+        Log.info("用户 " + username + " 登录成功");
     }
 
     /**
      * 处理落子请求
      */
-    private void handleMove(String[] parts) {
+    private void handleMove(MessageParser parts) {
         if (gameSession == null) {
             sendMessage(Protocol.buildMessage(Protocol.MOVE_FAIL, "未在游戏中"));
             return;
         }
 
-        if (parts.length < 3) {
+        if (parts.fieldCount() < 3) {
             sendMessage(Protocol.buildMessage(Protocol.MOVE_FAIL, "参数不足"));
             return;
         }
 
         try {
-            int x = Integer.parseInt(parts[1]);
-            int y = Integer.parseInt(parts[2]);
-            gameSession.handleMove(this, x, y);
+            // 坐标直接从消息文本解析为整数
+            int x = parts.nextInt();
+            int y = parts.nextInt();
+            GameSession session = gameSession;
+            session.execute(this, () -> session.handleMove(this, x, y), true);
         } catch (NumberFormatException e) {
             sendMessage(Protocol.buildMessage(Protocol.MOVE_FAIL, "坐标格式错误"));
         }
     }
 
     /**
-     * 处理聊天消息
+     * 处理落子请求（二进制协议，坐标已解码）
      */
-    private void handleChat(String[] parts) {
+    private void handleMove(int x, int y) {
         if (gameSession == null) {
-            sendMessage(Protocol.buildMessage(Protocol.ERROR, "未在游戏中"));
+            sendMessage(Protocol.buildMessage(Protocol.MOVE_FAIL, "未在游戏中"));
             return;
         }
+        GameSession session = gameSession;
+        session.execute(this, () -> session.handleMove(this, x, y), true);
+    }
 
-        if (parts.length < 2) {
+    /**
+     * 处理聊天消息
+     */
+    private void handleChat(MessageParser parts) {
+        if (gameSession == null) {
+            sendMessage(Protocol.buildMessage(Protocol.ERROR, "未在游戏中"));
             return;
         }
 
-        // 重新组合消息内容（可能包含分隔符）
-        StringBuilder messageBuilder = new StringBuilder();
-        for (int i = 1; i < parts.length; i++) {
-            if (i > 1) {
-                messageBuilder.append(Protocol.DELIMITER);
-            }
-            messageBuilder.append(parts[i]);
+        // 消息内容取指令之后的全部原始文本（可能包含分隔符）
+        String content = parts.remainder();
+        if (content.isEmpty()) {
+            return;
         }
 
-        gameSession.handleChat(this, messageBuilder.toString());
+        GameSession session = gameSession;
+        session.execute(this, () -> session.handleChat(this, content));
     }
 
     /**
@@ -231,7 +384,8 @@ public class ClientHandler implements Runnable {
             return;
         }
 
-        gameSession.handleSeatChange(this, Protocol.SIT_BLACK);
+        GameSession session = gameSession;
+        session.execute(this, () -> session.handleSeatChange(this, Protocol.SIT_BLACK));
     }
 
     /**
@@ -243,7 +397,8 @@ public class ClientHandler implements Runnable {
             return;
         }
 
-        gameSession.handleSeatChange(this, Protocol.SIT_WHITE);
+        GameSession session = gameSession;
+        session.execute(this, () -> session.handleSeatChange(this, Protocol.SIT_WHITE));
     }
 
     /**
@@ -255,7 +410,8 @@ public class ClientHandler implements Runnable {
             return;
         }
 
-        gameSession.handleSeatChange(this, Protocol.SIT_SPECTATOR);
+        GameSession session = gameSession;
+        session.execute(this, () -> session.handleSeatChange(this, Protocol.SIT_SPECTATOR));
     }
 
     /**
@@ -267,25 +423,27 @@ public class ClientHandler implements Runnable {
             return;
         }
 
-        gameSession.handleBattleInvite(this);
+        GameSession session = gameSession;
+        session.execute(this, () -> session.handleBattleInvite(this));
     }
 
     /**
      * 处理对战邀请响应
      */
-    private void handleBattleResponse(String[] parts) {
+    private void handleBattleResponse(MessageParser parts) {
         if (gameSession == null) {
             sendMessage(Protocol.buildMessage(Protocol.ERROR, "未在房间中"));
             return;
         }
 
-        if (parts.length < 2) {
+        if (!parts.hasMore()) {
             sendMessage(Protocol.buildMessage(Protocol.ERROR, "参数不足"));
             return;
         }
 
-        String response = parts[1];
-        gameSession.handleBattleResponse(this, response);
+        String response = parts.nextString();
+        GameSession session = gameSession;
+        session.execute(this, () -> session.handleBattleResponse(this, response));
     }
 
     /**
@@ -293,11 +451,12 @@ public class ClientHandler implements Runnable {
      */
     private void handleQuit() {
         // 只从游戏会话中移除，不断开连接
-        if (gameSession != null) {
-            gameSession.removeMember(this);
+        GameSession session = gameSession;
+        if (session != null) {
+            session.removeMember(this);
             gameSession = null;
             sendMessage(Protocol.buildMessage(Protocol.SYSTEM, "已退出房间"));
-            System.out.println("用户 " + username + " 退出房间");
+            Log.info("用户 " + username + " 退出房间");
         } else {
             sendMessage(Protocol.buildMessage(Protocol.ERROR, "您不在任何房间中"));
         }
@@ -314,30 +473,58 @@ public class ClientHandler implements Runnable {
      * 发送消息给客户端
      */
     public void sendMessage(String message) {
-        if (writer != null && !socket.isClosed()) {
-            writer.println(message.trim()); // 确保消息以换行符结束
-        }
+        connection.send(OutboundMessage.of(message));
+    }
+
+    /**
+     * 发送已编码的消息（广播时多个接收者共享同一份编码）
+     *
+     * @return 实际进入发送队列的字节数，消息被丢弃时为 0
+     */
+    public int sendMessage(OutboundMessage message) {
+        return connection.send(message);
     }
 
     /**
      * 处理观战请求（已由 JOIN_ROOM_BY_ID 替代）
      */
-    private void handleSpectate(String[] parts) {
-        if (parts.length < 2) {
+    private void handleSpectate(MessageParser parts) {
+        if (!requireLogin()) {
+            return;
+        }
+
+        if (!parts.hasMore()) {
             sendMessage(Protocol.buildMessage(Protocol.ERROR, "请指定房间ID"));
             return;
         }
 
-        String roomId = parts[1];
+        String roomId = parts.nextString();
 
         // 使用新的加入房间方法
         server.joinRoom(roomId, this);
     }
 
+    /**
+     * 进入房间前必须已登录（房间成员按用户名登记）
+     *
+     * @return 是否已登录；未登录时回复错误
+     */
+    private boolean requireLogin() {
+        if (username == null) {
+            sendMessage(Protocol.buildMessage(Protocol.ERROR, "请先登录"));
+            return false;
+        }
+        return true;
+    }
+
     /**
      * 处理创建房间请求
      */
     private void handleCreateRoom() {
+        if (!requireLogin()) {
+            return;
+        }
+
         // 检查是否已在游戏中
         if (gameSession != null) {
             sendMessage(Protocol.buildMessage(Protocol.ERROR, "您已在房间中"));
@@ -345,15 +532,22 @@ public class ClientHandler implements Runnable {
         }
 
         // 调用服务器创建房间（GameSession构造函数会发送ROOM_CREATED，这里不需要重复发送）
-        server.createEmptyRoom(this);
+        if (server.createEmptyRoom(this) == null) {
+            sendMessage(Protocol.buildMessage(Protocol.ERROR, "房间数量已达上限"));
+            return;
+        }
 
-        System.out.println("用户 " + username + " 创建了房间");
+        Log.info("用户 " + username + " 创建了房间");
     }
 
     /**
      * 处理快速加入请求
      */
     private void handleQuickJoin() {
+        if (!requireLogin()) {
+            return;
+        }
+
         // 检查是否已在游戏中
         if (gameSession != null) {
             sendMessage(Protocol.buildMessage(Protocol.ERROR, "您已在房间中"));
@@ -368,13 +562,17 @@ public class ClientHandler implements Runnable {
         }
         // 如果成功，GameSession 会发送游戏开始消息
 
-        System.out.println("用户 " + username + " 尝试快速加入房间: " + (success ? "成功" : "失败"));
+        Log.info("用户 " + username + " 尝试快速加入房间: " + (success ? "成功" : "失败"));
     }
 
     /**
      * 处理通过ID加入房间请求
      */
-    private void handleJoinRoomById(String[] parts) {
+    private void handleJoinRoomById(MessageParser parts) {
+        if (!requireLogin()) {
+            return;
+        }
+
         // 检查是否已在游戏中
         if (gameSession != null) {
             sendMessage(Protocol.buildMessage(Protocol.ERROR, "您已在房间中"));
@@ -382,12 +580,12 @@ public class ClientHandler implements Runnable {
         }
 
         // 检查参数
-        if (parts.length < 2) {
+        if (!parts.hasMore()) {
             sendMessage(Protocol.buildMessage(Protocol.ERROR, "请输入房间ID"));
             return;
         }
 
-        String roomId = parts[1].trim();
+        String roomId = parts.nextString().trim();
 
         // 检查房间ID格式
         if (roomId.isEmpty()) {
@@ -403,17 +601,46 @@ public class ClientHandler implements Runnable {
         }
         // 如果成功，GameSession 会发送游戏开始消息
 
-        System.out.println("用户 " + username + " 尝试加入房间 " + roomId + ": " + (success ? "成功" : "失败"));
+        Log.info("用户 " + username + " 尝试加入房间 " + roomId + ": " + (success ? "成功" : "失败"));
     }
 
     /**
      * 处理获取房间列表请求
      */
-    private void handleGetRoomList() {
+    private void handleGetRoomList(MessageParser parts) {
+        if (parts.hasMore()) {
+            // 带版本号的请求只回复变化的房间
+            long sinceVersion;
+            try {
+                sinceVersion = Long.parseLong(parts.nextString());
+            } catch (NumberFormatException e) {
+                sinceVersion = 0;
+            }
+            sendMessage(server.getRoomListDelta(sinceVersion).toMessage());
+            return;
+        }
+
         String roomList = server.getRoomList();
         sendMessage(Protocol.buildMessage(Protocol.ROOM_LIST, roomList));
 
-        System.out.println("用户 " + username + " 请求房间列表");
+        if (Log.DEBUG_ENABLED) {
+            Log.debug("用户 " + username + " 请求房间列表");
+        }
+    }
+
+    /**
+     * 处理大厅订阅请求
+     */
+    private void handleLobbySubscribe(MessageParser parts) {
+        long sinceVersion = 0;
+        if (parts.hasMore()) {
+            try {
+                sinceVersion = Long.parseLong(parts.nextString());
+            } catch (NumberFormatException e) {
+                sinceVersion = 0;
+            }
+        }
+        server.getLobbyPublisher().subscribe(this, sinceVersion);
     }
 
     /**
@@ -426,43 +653,50 @@ public class ClientHandler implements Runnable {
         }
 
         // 请求GameSession发送完整的房间状态
-        gameSession.sendRoomStateTo(this);
+        GameSession session = gameSession;
+        session.execute(this, () -> session.sendRoomStateTo(this));
 
-        System.out.println("用户 " + username + " 请求房间状态");
+        if (Log.DEBUG_ENABLED) {
+            Log.debug("用户 " + username + " 请求房间状态");
+        }
     }
 
     /**
      * 断开连接
      */
     public void disconnect() {
+        // 读线程、事件循环和服务器关闭都可能触发断开，只执行一次
+        if (!disconnected.compareAndSet(false, true)) {
+            return;
+        }
         running = false;
 
         // 从游戏会话中移除
-        if (gameSession != null) {
-            gameSession.removeMember(this);
+        GameSession session = gameSession;
+        if (session != null) {
+            session.removeMember(this);
             gameSession = null;
         }
 
         // 从服务器中移除
+        server.getLobbyPublisher().unsubscribe(this);
         server.removeClient(this);
 
         // 关闭资源
-        try {
-            if (reader != null)
-                reader.close();
-            if (writer != null)
-                writer.close();
-            if (socket != null && !socket.isClosed())
-                socket.close();
-        } catch (IOException e) {
-            System.err.println("关闭连接异常: " + e.getMessage());
-        }
+        connection.close();
 
-        System.out.println("用户 " + username + " 断开连接");
+        Log.info("用户 " + username + " 断开连接");
     }
 
     // Getters and Setters
 
+    /**
+     * 登录时是否声明支持心跳（会回复 PING）
+     */
+    public boolean isHeartbeatEnabled() {
+        return heartbeatEnabled;
+    }
+
     public String getUsername() {
         return username;
     }
@@ -475,6 +709,34 @@ public class ClientHandler implements Runnable {
         this.role = role;
     }
 
+    /**
+     * 最后一次收到消息的时间（System.nanoTime()）
+     */
+    public long getLastReadNanos() {
+        return lastReadNanos;
+    }
+
+    /**
+     * 是否已断开
+     */
+    public boolean isDisconnected() {
+        return disconnected.get();
+    }
+
+    /**
+     * 远端地址（用于日志）
+     */
+    public String getRemoteAddress() {
+        return connection.getRemoteAddress();
+    }
+
+    /**
+     * 发送队列中尚未写出的消息数
+     */
+    public int getPendingOutbound() {
+        return connection.getPendingCount();
+    }
+
     public GameSession getGameSession() {
         return gameSession;
     }
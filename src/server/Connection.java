@@ -0,0 +1,42 @@
+package server;
+
+/**
+ * 客户端连接的传输层抽象
+ * 阻塞模式由 SocketConnection 实现，NIO 模式由 NioConnection 实现，
+ * ClientHandler 只通过此接口收发消息，与具体传输方式无关
+ */
+public interface Connection {
+
+    /**
+     * 发送一条已编码的消息（同一消息对象可被多个连接共享）
+     *
+     * @return 实际进入发送队列的字节数；连接已关闭、队列已满或低优先级消息被丢弃时返回 0
+     */
+    int send(OutboundMessage message);
+
+    /**
+     * 切换到二进制帧协议（登录协商成功后调用）
+     * 之后收到的字节按二进制帧解析，之后发送的消息以二进制帧编码
+     */
+    void setBinary(boolean binary);
+
+    /**
+     * 关闭连接（可重复调用）
+     */
+    void close();
+
+    /**
+     * 连接是否仍然打开
+     */
+    boolean isOpen();
+
+    /**
+     * 远端地址（用于日志）
+     */
+    String getRemoteAddress();
+
+    /**
+     * 发送队列中尚未写出的消息数
+     */
+    int getPendingCount();
+}
@@ -0,0 +1,29 @@
+package server;
+
+/**
+ * 空房间回收
+ * 房间变为空时由 GameSession 登记一个宽限期定时任务，宽限期内有人加入则取消；
+ * 到期后在房间锁内再次确认为空才真正关闭并移除。
+ * 每次登记和取消都是时间轮上的 O(1) 操作，不再每秒扫描全部房间
+ */
+public class EmptyRoomReclaimer {
+
+    private final Server server;
+    private final TimingWheel wheel;
+    private final long graceMs;
+
+    public EmptyRoomReclaimer(Server server, TimingWheel wheel, long graceMs) {
+        this.server = server;
+        this.wheel = wheel;
+        this.graceMs = graceMs;
+    }
+
+    /**
+     * 房间变为空，宽限期后回收
+     *
+     * @return 定时任务句柄，房间重新有人时取消
+     */
+    public TimingWheel.Timeout roomEmptied(GameSession session) {
+        return wheel.schedule(() -> server.reclaimRoom(session), graceMs);
+    }
+}
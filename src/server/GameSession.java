@@ -1,9 +1,13 @@
 package server;
 
+import common.BoardSnapshot;
 import common.Protocol;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.text.SimpleDateFormat;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
 
 /**
  * 游戏会话类 - 重新设计支持席位系统
@@ -12,8 +16,15 @@ import java.text.SimpleDateFormat;
  */
 public class GameSession {
 
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss"); // 聊天时间戳格式
+
     private String roomId; // 房间ID
-    private ChessRule chessRule; // 游戏规则引擎
+    private RoomDirectory roomDirectory; // 房间列表目录（可能为空）
+    private JoinableRoomIndex joinableRooms; // 可加入房间索引（可能为空）
+    private EmptyRoomReclaimer reclaimer; // 空房间回收（可能为空）
+    private TimingWheel.Timeout reclaimTimeout; // 房间为空时的回收任务，在房间锁内访问
+    private RoomExecutors.Mailbox mailbox; // 房间信箱（锁模式下为空）
+    private RuleEngine chessRule; // 游戏规则引擎
 
     // 席位管理
     private ClientHandler blackSeat; // 黑棋席位（可能为空）
@@ -24,21 +35,47 @@ public class GameSession {
     private boolean battleStarted; // 对战是否已开始
     private boolean gameOver; // 游戏是否结束
     private String currentTurn; // 当前回合（BLACK/WHITE）
+    private long boardSequence; // 棋盘版本号，每次落子或重置加一
     private ClientHandler battleInviter; // 对战邀请发起者
 
-    private SimpleDateFormat dateFormat; // 时间戳格式
+
+    // 快速加入索引状态（见 JoinableRoomIndex），在房间锁内更新，索引无锁读取
+    private volatile int joinState = JoinableRoomIndex.STATE_OPEN_SEAT;
+    private final AtomicInteger queuedStates = new AtomicInteger(); // 已在哪些索引队列中（按位）
+    private volatile boolean closed; // 房间已关闭，不再接受加入
+
+    private volatile Stats stats; // 最近一次状态变化后的快照，供统计无锁读取
+
+    // 房间锁：使用 ReentrantLock 而不是 synchronized，虚拟线程在等待锁和写套接字时不会钉住载体线程。
+    // 信箱模式下房间指令都在同一个分片线程中执行，锁只在加入房间和关闭房间时可能被其他线程争用
+    private final ReentrantLock lock = new ReentrantLock();
 
     /**
      * 创建房间（创建者自动进入观战席）
      */
     public GameSession(String roomId, ClientHandler creator) {
+        this(roomId, creator, null, null, null, null, new ChessRule());
+    }
+
+    /**
+     * 创建房间并登记到房间列表目录和可加入房间索引，房间变为空时交给回收器
+     *
+     * @param mailbox 房间信箱；为空时房间指令在调用线程中加锁执行
+     * @param chessRule 规则引擎（每个房间独占一个）
+     */
+    public GameSession(String roomId, ClientHandler creator, RoomDirectory roomDirectory,
+            JoinableRoomIndex joinableRooms, EmptyRoomReclaimer reclaimer, RoomExecutors.Mailbox mailbox,
+            RuleEngine chessRule) {
         this.roomId = roomId;
-        this.chessRule = new ChessRule();
+        this.roomDirectory = roomDirectory;
+        this.joinableRooms = joinableRooms;
+        this.reclaimer = reclaimer;
+        this.mailbox = mailbox;
+        this.chessRule = chessRule;
         this.spectators = new ConcurrentHashMap<>();
         this.battleStarted = false;
         this.gameOver = false;
         this.currentTurn = Protocol.BLACK;
-        this.dateFormat = new SimpleDateFormat("HH:mm:ss");
 
         // 创建者进入观战席
         spectators.put(creator.getUsername(), creator);
@@ -50,53 +87,200 @@ public class GameSession {
                 Protocol.ROOM_CREATED,
                 roomId));
 
-        System.out.println("房间 " + roomId + " 已创建，创建者：" + creator.getUsername());
+        if (roomDirectory != null) {
+            roomDirectory.put(roomId, getStatusText(), getMemberCount());
+        }
+        if (joinableRooms != null) {
+            joinableRooms.update(this);
+        }
+        stats = new Stats(this);
+
+        Log.info("房间 " + roomId + " 已创建，创建者：" + creator.getUsername());
+    }
+
+    /**
+     * 执行成员发出的房间指令
+     * 信箱模式下投递到房间信箱，由房间所属分片线程按顺序执行，执行时成员已离开房间则丢弃；
+     * 锁模式下直接在调用线程执行。
+     * 加入和离开房间不经过信箱，由调用线程在房间锁内完成，调用方可以立即得到结果
+     */
+    public void execute(ClientHandler member, Runnable command) {
+        execute(member, command, false);
+    }
+
+    /**
+     * 执行成员发出的房间指令
+     *
+     * @param urgent 是否走信箱的加急通道（落子），先于已排队的聊天等指令执行
+     */
+    public void execute(ClientHandler member, Runnable command, boolean urgent) {
+        if (mailbox == null) {
+            command.run();
+            return;
+        }
+        Runnable task = () -> {
+            lock.lock();
+            try {
+                if (member.getGameSession() == this) {
+                    command.run();
+                }
+            } finally {
+                lock.unlock();
+            }
+        };
+        if (urgent) {
+            mailbox.submitUrgent(task);
+        } else {
+            mailbox.submit(task);
+        }
     }
 
     /**
      * 玩家加入房间（自动进入观战席）
      */
-    public synchronized void addMember(ClientHandler member) {
-        spectators.put(member.getUsername(), member);
-        member.setRole(Protocol.SPECTATOR);
-        member.setGameSession(this);
+    public void addMember(ClientHandler member) {
+        lock.lock();
+        try {
+            spectators.put(member.getUsername(), member);
+            member.setRole(Protocol.SPECTATOR);
+            member.setGameSession(this);
+
+            // 通知加入成功（客户端收到后会主动请求房间状态）
+            member.sendMessage(Protocol.buildMessage(
+                    Protocol.JOIN_ROOM,
+                    roomId,
+                    getBlackSeatName(),
+                    getWhiteSeatName()));
+
+            // 广播席位更新给其他人（不包括新加入的玩家）
+            broadcastSeatUpdateExcept(member);
+            broadcastSystem(member.getUsername() + " 加入了房间");
+        } finally {
+            publishRoomState();
+            lock.unlock();
+        }
+    }
 
-        // 通知加入成功（客户端收到后会主动请求房间状态）
-        member.sendMessage(Protocol.buildMessage(
-                Protocol.JOIN_ROOM,
-                roomId,
-                getBlackSeatName(),
-                getWhiteSeatName()));
+    /**
+     * 加入房间（进入观战席）
+     *
+     * @return 房间已关闭时返回 false
+     */
+    public boolean join(ClientHandler member) {
+        lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            addMember(member);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
 
-        // 广播席位更新给其他人（不包括新加入的玩家）
-        broadcastSeatUpdateExcept(member);
-        broadcastSystem(member.getUsername() + " 加入了房间");
+    /**
+     * 快速加入：进入房间并坐到空着的对战席（没有空席时留在观战席）
+     *
+     * @return 房间已关闭时返回 false
+     */
+    public boolean quickJoin(ClientHandler member) {
+        lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            addMember(member);
+            if (!battleStarted || gameOver) {
+                if (blackSeat == null) {
+                    handleSitBlack(member, member.getRole());
+                } else if (whiteSeat == null) {
+                    handleSitWhite(member, member.getRole());
+                }
+            }
+            return true;
+        } finally {
+            publishRoomState();
+            lock.unlock();
+        }
     }
 
     /**
-     * 处理席位切换请求
+     * 房间为空时关闭房间，关闭后不再接受加入
+     *
+     * @return 是否已关闭
      */
-    public synchronized void handleSeatChange(ClientHandler member, String targetSeat) {
-        // 检查游戏是否已开始
-        if (battleStarted && !gameOver) {
-            member.sendMessage(Protocol.buildMessage(Protocol.ERROR, "对战进行中，无法切换席位"));
-            return;
+    public boolean closeIfEmpty() {
+        lock.lock();
+        try {
+            if (!closed && isEmpty()) {
+                markClosed();
+            }
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 关闭房间，关闭后不再接受加入
+     */
+    public void close() {
+        lock.lock();
+        try {
+            if (!closed) {
+                markClosed();
+            }
+            if (reclaimTimeout != null) {
+                reclaimTimeout.cancel();
+                reclaimTimeout = null;
+            }
+        } finally {
+            lock.unlock();
         }
+    }
 
-        String currentRole = member.getRole();
+    private void markClosed() {
+        closed = true;
+        joinState = JoinableRoomIndex.STATE_CLOSED;
+        if (joinableRooms != null) {
+            joinableRooms.remove(this);
+        }
+        if (mailbox != null) {
+            mailbox.release();
+        }
+    }
 
-        switch (targetSeat) {
-            case Protocol.SIT_BLACK:
-                handleSitBlack(member, currentRole);
-                break;
-            case Protocol.SIT_WHITE:
-                handleSitWhite(member, currentRole);
-                break;
-            case Protocol.SIT_SPECTATOR:
-                handleSitSpectator(member, currentRole);
-                break;
-            default:
-                member.sendMessage(Protocol.buildMessage(Protocol.ERROR, "未知的席位类型"));
+    /**
+     * 处理席位切换请求
+     */
+    public void handleSeatChange(ClientHandler member, String targetSeat) {
+        lock.lock();
+        try {
+            // 检查游戏是否已开始
+            if (battleStarted && !gameOver) {
+                member.sendMessage(Protocol.buildMessage(Protocol.ERROR, "对战进行中，无法切换席位"));
+                return;
+            }
+
+            String currentRole = member.getRole();
+
+            switch (targetSeat) {
+                case Protocol.SIT_BLACK:
+                    handleSitBlack(member, currentRole);
+                    break;
+                case Protocol.SIT_WHITE:
+                    handleSitWhite(member, currentRole);
+                    break;
+                case Protocol.SIT_SPECTATOR:
+                    handleSitSpectator(member, currentRole);
+                    break;
+                default:
+                    member.sendMessage(Protocol.buildMessage(Protocol.ERROR, "未知的席位类型"));
+            }
+        } finally {
+            publishRoomState();
+            lock.unlock();
         }
     }
 
@@ -180,64 +364,75 @@ public class GameSession {
     /**
      * 处理对战邀请
      */
-    public synchronized void handleBattleInvite(ClientHandler inviter) {
-        // 检查是否是黑白席玩家
-        if (inviter != blackSeat && inviter != whiteSeat) {
-            inviter.sendMessage(Protocol.buildMessage(Protocol.ERROR, "只有黑白席玩家可以发起对战邀请"));
-            return;
-        }
+    public void handleBattleInvite(ClientHandler inviter) {
+        lock.lock();
+        try {
+            // 检查是否是黑白席玩家
+            if (inviter != blackSeat && inviter != whiteSeat) {
+                inviter.sendMessage(Protocol.buildMessage(Protocol.ERROR, "只有黑白席玩家可以发起对战邀请"));
+                return;
+            }
 
-        // 检查黑白席是否都有人
-        if (blackSeat == null || whiteSeat == null) {
-            inviter.sendMessage(Protocol.buildMessage(Protocol.ERROR, "黑白席必须都有人才能发起对战"));
-            return;
-        }
+            // 检查黑白席是否都有人
+            if (blackSeat == null || whiteSeat == null) {
+                inviter.sendMessage(Protocol.buildMessage(Protocol.ERROR, "黑白席必须都有人才能发起对战"));
+                return;
+            }
 
-        // 检查是否已有邀请
-        if (battleInviter != null) {
-            inviter.sendMessage(Protocol.buildMessage(Protocol.ERROR, "已有对战邀请等待响应"));
-            return;
-        }
+            // 检查是否已有邀请
+            if (battleInviter != null) {
+                inviter.sendMessage(Protocol.buildMessage(Protocol.ERROR, "已有对战邀请等待响应"));
+                return;
+            }
 
-        // 记录邀请发起者
-        battleInviter = inviter;
+            // 记录邀请发起者
+            battleInviter = inviter;
 
-        // 通知对方
-        ClientHandler opponent = (inviter == blackSeat) ? whiteSeat : blackSeat;
-        opponent.sendMessage(Protocol.buildMessage(
-                Protocol.BATTLE_INVITE_NOTIFY,
-                inviter.getUsername()));
+            // 通知对方
+            ClientHandler opponent = (inviter == blackSeat) ? whiteSeat : blackSeat;
+            opponent.sendMessage(Protocol.buildMessage(
+                    Protocol.BATTLE_INVITE_NOTIFY,
+                    inviter.getUsername()));
 
-        broadcastSystem(inviter.getUsername() + " 发起了对战邀请");
+            broadcastSystem(inviter.getUsername() + " 发起了对战邀请");
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
      * 处理对战邀请响应
      */
-    public synchronized void handleBattleResponse(ClientHandler responder, String response) {
-        // 检查是否有待响应的邀请
-        if (battleInviter == null) {
-            responder.sendMessage(Protocol.buildMessage(Protocol.ERROR, "当前没有对战邀请"));
-            return;
-        }
+    public void handleBattleResponse(ClientHandler responder, String response) {
+        lock.lock();
+        try {
+            // 检查是否有待响应的邀请
+            if (battleInviter == null) {
+                responder.sendMessage(Protocol.buildMessage(Protocol.ERROR, "当前没有对战邀请"));
+                return;
+            }
 
-        // 检查响应者是否是对方
-        ClientHandler expectedResponder = (battleInviter == blackSeat) ? whiteSeat : blackSeat;
-        if (responder != expectedResponder) {
-            responder.sendMessage(Protocol.buildMessage(Protocol.ERROR, "你不是被邀请的对象"));
-            return;
-        }
+            // 检查响应者是否是对方
+            ClientHandler expectedResponder = (battleInviter == blackSeat) ? whiteSeat : blackSeat;
+            if (responder != expectedResponder) {
+                responder.sendMessage(Protocol.buildMessage(Protocol.ERROR, "你不是被邀请的对象"));
+                return;
+            }
 
-        if (response.equals(Protocol.AGREE)) {
-            // 同意对战，开始游戏
-            startBattle();
-        } else {
-            // 拒绝对战
-            battleInviter.sendMessage(Protocol.buildMessage(
-                    Protocol.SYSTEM,
-                    responder.getUsername() + " 拒绝了你的对战邀请"));
-            broadcastSystem(responder.getUsername() + " 拒绝了对战邀请");
-            battleInviter = null;
+            if (response.equals(Protocol.AGREE)) {
+                // 同意对战，开始游戏
+                startBattle();
+            } else {
+                // 拒绝对战
+                battleInviter.sendMessage(Protocol.buildMessage(
+                        Protocol.SYSTEM,
+                        responder.getUsername() + " 拒绝了你的对战邀请"));
+                broadcastSystem(responder.getUsername() + " 拒绝了对战邀请");
+                battleInviter = null;
+            }
+        } finally {
+            publishRoomState();
+            lock.unlock();
         }
     }
 
@@ -252,6 +447,7 @@ public class GameSession {
 
         // 重置棋盘（清空上一局的棋子）
         chessRule.reset();
+        boardSequence++;
 
         // 先通知客户端清空棋盘
         broadcastToAll(Protocol.buildMessage(Protocol.BOARD_RESET));
@@ -264,54 +460,63 @@ public class GameSession {
     /**
      * 处理落子请求
      */
-    public synchronized void handleMove(ClientHandler player, int x, int y) {
-        // 检查对战是否已开始
-        if (!battleStarted) {
-            player.sendMessage(Protocol.buildMessage(Protocol.MOVE_FAIL, "对战尚未开始"));
-            return;
-        }
-
-        // 检查游戏是否已结束
-        if (gameOver) {
-            player.sendMessage(Protocol.buildMessage(Protocol.MOVE_FAIL, "游戏已结束"));
-            return;
-        }
+    public void handleMove(ClientHandler player, int x, int y) {
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            // 检查对战是否已开始
+            if (!battleStarted) {
+                player.sendMessage(Protocol.buildMessage(Protocol.MOVE_FAIL, "对战尚未开始"));
+                return;
+            }
 
-        // 检查是否是执棋者
-        if (player != blackSeat && player != whiteSeat) {
-            player.sendMessage(Protocol.buildMessage(Protocol.MOVE_FAIL, "观战者无法落子"));
-            return;
-        }
+            // 检查游戏是否已结束
+            if (gameOver) {
+                player.sendMessage(Protocol.buildMessage(Protocol.MOVE_FAIL, "游戏已结束"));
+                return;
+            }
 
-        // 检查是否轮到该玩家
-        String playerColor = getPlayerColor(player);
-        if (!currentTurn.equals(playerColor)) {
-            player.sendMessage(Protocol.buildMessage(Protocol.MOVE_FAIL, "还未轮到你"));
-            return;
-        }
+            // 检查是否是执棋者
+            if (player != blackSeat && player != whiteSeat) {
+                player.sendMessage(Protocol.buildMessage(Protocol.MOVE_FAIL, "观战者无法落子"));
+                return;
+            }
 
-        // 检查位置是否合法
-        if (!chessRule.isEmpty(x, y)) {
-            player.sendMessage(Protocol.buildMessage(Protocol.MOVE_FAIL, "该位置已有棋子"));
-            return;
-        }
+            // 检查是否轮到该玩家
+            String playerColor = getPlayerColor(player);
+            if (!currentTurn.equals(playerColor)) {
+                player.sendMessage(Protocol.buildMessage(Protocol.MOVE_FAIL, "还未轮到你"));
+                return;
+            }
 
-        // 落子
-        if (chessRule.placeStone(x, y, playerColor)) {
-            // 广播落子成功
-            broadcastMove(x, y, playerColor, player.getUsername());
+            // 检查位置是否合法
+            if (!chessRule.isEmpty(x, y)) {
+                player.sendMessage(Protocol.buildMessage(Protocol.MOVE_FAIL, "该位置已有棋子"));
+                return;
+            }
 
-            // 检查胜负
-            if (chessRule.checkWin(x, y)) {
-                handleGameEnd(playerColor, Protocol.WIN);
-            } else if (chessRule.checkDraw()) {
-                handleGameEnd(null, Protocol.DRAW);
+            // 落子
+            if (chessRule.placeStone(x, y, playerColor)) {
+                boardSequence++;
+                // 广播落子成功
+                broadcastMove(x, y, playerColor, player.getUsername());
+
+                // 检查胜负
+                if (chessRule.checkWin(x, y)) {
+                    handleGameEnd(playerColor, Protocol.WIN);
+                } else if (chessRule.checkDraw()) {
+                    handleGameEnd(null, Protocol.DRAW);
+                } else {
+                    // 切换回合
+                    currentTurn = currentTurn.equals(Protocol.BLACK) ? Protocol.WHITE : Protocol.BLACK;
+                }
             } else {
-                // 切换回合
-                currentTurn = currentTurn.equals(Protocol.BLACK) ? Protocol.WHITE : Protocol.BLACK;
+                player.sendMessage(Protocol.buildMessage(Protocol.MOVE_FAIL, "落子失败"));
             }
-        } else {
-            player.sendMessage(Protocol.buildMessage(Protocol.MOVE_FAIL, "落子失败"));
+        } finally {
+            publishRoomState();
+            lock.unlock();
+            Metrics.MOVE_TIME.recordSince(start);
         }
     }
 
@@ -319,40 +524,53 @@ public class GameSession {
      * 处理聊天消息
      */
     public void handleChat(ClientHandler sender, String message) {
-        String timestamp = dateFormat.format(new Date());
-        String chatMsg = Protocol.buildMessage(
+        // 格式化和编码在锁外完成，聊天只在遍历成员时占用房间锁
+        OutboundMessage chatMsg = OutboundMessage.of(Protocol.buildMessage(
                 Protocol.CHAT_MSG,
                 sender.getUsername(),
-                timestamp,
-                message);
-        broadcastToAll(chatMsg);
+                LocalTime.now().format(TIME_FORMAT),
+                message));
+        lock.lock();
+        try {
+            broadcastToAll(chatMsg);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
      * 移除成员
      */
-    public synchronized void removeMember(ClientHandler member) {
-        String role = member.getRole();
-
-        if (member == blackSeat) {
-            blackSeat = null;
-            if (battleStarted && !gameOver) {
-                handleGameEnd(Protocol.WHITE, "黑棋玩家离开");
+    public void removeMember(ClientHandler member) {
+        lock.lock();
+        try {
+            if (member.getGameSession() == this) {
+                member.setGameSession(null);
             }
-            broadcastSystem(member.getUsername() + " 离开了黑棋席");
-        } else if (member == whiteSeat) {
-            whiteSeat = null;
-            if (battleStarted && !gameOver) {
-                handleGameEnd(Protocol.BLACK, "白棋玩家离开");
+
+            if (member == blackSeat) {
+                blackSeat = null;
+                if (battleStarted && !gameOver) {
+                    handleGameEnd(Protocol.WHITE, "黑棋玩家离开");
+                }
+                broadcastSystem(member.getUsername() + " 离开了黑棋席");
+            } else if (member == whiteSeat) {
+                whiteSeat = null;
+                if (battleStarted && !gameOver) {
+                    handleGameEnd(Protocol.BLACK, "白棋玩家离开");
+                }
+                broadcastSystem(member.getUsername() + " 离开了白棋席");
+            } else {
+                spectators.remove(member.getUsername());
+                broadcastSystem(member.getUsername() + " 离开了房间");
             }
-            broadcastSystem(member.getUsername() + " 离开了白棋席");
-        } else {
-            spectators.remove(member.getUsername());
-            broadcastSystem(member.getUsername() + " 离开了房间");
-        }
 
-        // 广播席位更新
-        broadcastSeatUpdate();
+            // 广播席位更新
+            broadcastSeatUpdate();
+        } finally {
+            publishRoomState();
+            lock.unlock();
+        }
     }
 
     /**
@@ -372,7 +590,42 @@ public class GameSession {
 
         broadcastSystem("游戏结束。棋盘保留供复盘，黑白席玩家可以发起新的对战邀请。");
 
-        System.out.println("房间 " + roomId + " 游戏结束，棋盘保留供复盘");
+        Log.info("房间 " + roomId + " 游戏结束，棋盘保留供复盘");
+    }
+
+    /**
+     * 将房间状态推送到房间列表目录（内容未变化时目录不产生新版本）
+     */
+    private void publishRoomState() {
+        if (closed) {
+            return;
+        }
+
+        // 空/非空状态切换时登记或取消回收任务
+        if (reclaimer != null) {
+            boolean empty = isEmpty();
+            if (empty && reclaimTimeout == null) {
+                reclaimTimeout = reclaimer.roomEmptied(this);
+            } else if (!empty && reclaimTimeout != null) {
+                reclaimTimeout.cancel();
+                reclaimTimeout = null;
+            }
+        }
+
+        if (roomDirectory != null) {
+            roomDirectory.update(roomId, getStatusText(), getMemberCount());
+        }
+        if (blackSeat != null && whiteSeat != null || battleStarted && !gameOver) {
+            joinState = JoinableRoomIndex.STATE_SPECTATE_ONLY;
+        } else if (blackSeat != null || whiteSeat != null) {
+            joinState = JoinableRoomIndex.STATE_WAITING_OPPONENT;
+        } else {
+            joinState = JoinableRoomIndex.STATE_OPEN_SEAT;
+        }
+        if (joinableRooms != null) {
+            joinableRooms.update(this);
+        }
+        stats = new Stats(this);
     }
 
     /**
@@ -391,43 +644,42 @@ public class GameSession {
      * 广播席位状态更新（排除指定客户端）
      */
     private void broadcastSeatUpdateExcept(ClientHandler except) {
-        String message = Protocol.buildMessage(
+        OutboundMessage message = OutboundMessage.of(Protocol.buildMessage(
                 Protocol.SEAT_UPDATE,
                 getBlackSeatName(),
                 getWhiteSeatName(),
-                String.valueOf(spectators.size()));
+                String.valueOf(spectators.size())));
 
+        long start = System.nanoTime();
+        int recipients = 0;
+        long sent = 0;
         if (blackSeat != null && blackSeat != except) {
-            blackSeat.sendMessage(message);
+            sent += blackSeat.sendMessage(message);
+            recipients++;
         }
         if (whiteSeat != null && whiteSeat != except) {
-            whiteSeat.sendMessage(message);
+            sent += whiteSeat.sendMessage(message);
+            recipients++;
         }
         for (ClientHandler spectator : spectators.values()) {
             if (spectator != except) {
-                spectator.sendMessage(message);
+                sent += spectator.sendMessage(message);
+                recipients++;
             }
         }
+        BroadcastStats.record(message, recipients, sent, start);
     }
 
     /**
-     * 同步棋盘状态给指定客户端
+     * 同步棋盘状态给指定客户端（整个棋盘打包为一条快照消息）
      */
     private void syncBoardState(ClientHandler client) {
-        int[][] board = chessRule.getBoardState();
-        for (int i = 0; i < Protocol.BOARD_SIZE; i++) {
-            for (int j = 0; j < Protocol.BOARD_SIZE; j++) {
-                if (board[i][j] != 0) {
-                    String color = board[i][j] == 1 ? Protocol.BLACK : Protocol.WHITE;
-                    client.sendMessage(Protocol.buildMessage(
-                            Protocol.MOVE_SUCCESS,
-                            String.valueOf(i),
-                            String.valueOf(j),
-                            color,
-                            "系统"));
-                }
-            }
-        }
+        BoardSnapshot snapshot = new BoardSnapshot(
+                boardSequence,
+                currentTurn,
+                chessRule.getBoardState(),
+                chessRule.getMoveHistory());
+        client.sendMessage(snapshot.toMessage());
     }
 
     /**
@@ -464,17 +716,32 @@ public class GameSession {
 
     /**
      * 向房间所有成员广播消息
+     * 消息只编码一次，所有接收者共享同一份字节
      */
     private void broadcastToAll(String message) {
+        broadcastToAll(OutboundMessage.of(message));
+    }
+
+    /**
+     * 向房间所有成员广播已编码的消息
+     */
+    private void broadcastToAll(OutboundMessage encoded) {
+        long start = System.nanoTime();
+        int recipients = 0;
+        long sent = 0;
         if (blackSeat != null) {
-            blackSeat.sendMessage(message);
+            sent += blackSeat.sendMessage(encoded);
+            recipients++;
         }
         if (whiteSeat != null) {
-            whiteSeat.sendMessage(message);
+            sent += whiteSeat.sendMessage(encoded);
+            recipients++;
         }
         for (ClientHandler spectator : spectators.values()) {
-            spectator.sendMessage(message);
+            sent += spectator.sendMessage(encoded);
+            recipients++;
         }
+        BroadcastStats.record(encoded, recipients, sent, start);
     }
 
     /**
@@ -517,6 +784,50 @@ public class GameSession {
         return blackSeat == null && whiteSeat == null && spectators.isEmpty();
     }
 
+    /**
+     * 快速加入索引状态
+     */
+    int getJoinState() {
+        return joinState;
+    }
+
+    /**
+     * 标记已进入指定状态的索引队列
+     *
+     * @return 之前未在该队列中
+     */
+    boolean markQueued(int state) {
+        int bit = 1 << state;
+        int current;
+        do {
+            current = queuedStates.get();
+            if ((current & bit) != 0) {
+                return false;
+            }
+        } while (!queuedStates.compareAndSet(current, current | bit));
+        return true;
+    }
+
+    /**
+     * 清除全部索引队列标记
+     *
+     * @return 清除前所在的队列（按位）
+     */
+    int takeQueued() {
+        return queuedStates.getAndSet(0);
+    }
+
+    /**
+     * 清除指定状态的索引队列标记
+     */
+    void clearQueued(int state) {
+        int bit = 1 << state;
+        int current;
+        do {
+            current = queuedStates.get();
+        } while (!queuedStates.compareAndSet(current, current & ~bit));
+    }
+
     /**
      * 获取房间成员数量
      */
@@ -559,27 +870,92 @@ public class GameSession {
         return spectators.size();
     }
 
+    /**
+     * 最近一次状态变化后的房间快照（无锁读取）
+     */
+    public Stats getStats() {
+        return stats;
+    }
+
     /**
      * 发送完整的房间状态给指定客户端
      * 包括席位状态、游戏状态、棋盘状态
      */
-    public synchronized void sendRoomStateTo(ClientHandler client) {
-        // 1. 发送席位状态
-        client.sendMessage(Protocol.buildMessage(
-                Protocol.SEAT_UPDATE,
-                getBlackSeatName(),
-                getWhiteSeatName(),
-                String.valueOf(spectators.size())));
+    public void sendRoomStateTo(ClientHandler client) {
+        lock.lock();
+        try {
+            // 1. 发送席位状态
+            client.sendMessage(Protocol.buildMessage(
+                    Protocol.SEAT_UPDATE,
+                    getBlackSeatName(),
+                    getWhiteSeatName(),
+                    String.valueOf(spectators.size())));
+
+            // 2. 如果游戏已开始，发送游戏状态和棋盘状态
+            if (battleStarted) {
+                if (Log.DEBUG_ENABLED) {
+                    Log.debug("同步游戏状态和棋盘给 " + client.getUsername());
+                }
+                // 通知游戏已开始
+                client.sendMessage(Protocol.buildMessage(Protocol.BATTLE_START));
+                // 一次性同步整个棋盘
+                syncBoardState(client);
+            }
+
+            if (Log.DEBUG_ENABLED) {
+                Log.debug("已发送完整房间状态给 " + client.getUsername());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 房间状态快照
+     * 在房间锁内随每次状态推送重新生成，管理端统计只读取 volatile 引用，不需要房间锁
+     */
+    public static final class Stats {
+        private final String status;
+        private final int members;
+        private final int spectators;
+        private final int joinState;
+        private final boolean inBattle;
+        private final long boardSequence;
+
+        private Stats(GameSession session) {
+            this.status = session.getStatusText();
+            this.members = session.getMemberCount();
+            this.spectators = session.spectators.size();
+            this.joinState = session.joinState;
+            this.inBattle = session.battleStarted && !session.gameOver;
+            this.boardSequence = session.boardSequence;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public int getMembers() {
+            return members;
+        }
 
-        // 2. 如果游戏已开始，发送游戏状态和棋盘状态
-        if (battleStarted) {
-            System.out.println("DEBUG: 同步游戏状态和棋盘给 " + client.getUsername());
-            // 通知游戏已开始
-            client.sendMessage(Protocol.buildMessage(Protocol.BATTLE_START));
-            // 同步所有已下的棋子
-            syncBoardState(client);
+        public int getSpectators() {
+            return spectators;
         }
 
-        System.out.println("已发送完整房间状态给 " + client.getUsername());
+        /**
+         * 快速加入索引状态（JoinableRoomIndex.STATE_*）
+         */
+        public int getJoinState() {
+            return joinState;
+        }
+
+        public boolean isInBattle() {
+            return inBattle;
+        }
+
+        public long getBoardSequence() {
+            return boardSequence;
+        }
     }
 }
\ No newline at end of file
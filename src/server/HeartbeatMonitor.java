@@ -0,0 +1,92 @@
+package server;
+
+import common.Protocol;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 心跳与空闲连接回收
+ * 每个连接在时间轮上只挂一个检查任务。任务到期时根据连接最后一次收到消息的时间决定：
+ * 空闲超过心跳间隔就发送 PING，超过空闲超时就断开；然后按剩余时间重新登记下一次检查。
+ *
+ * 只有登录时声明支持心跳（HB1）的连接才会收到 PING 并按空闲超时回收。
+ * 旧版文本客户端不认识 PING，观战或长考时也可能长时间不发消息，只按单独的较长超时回收（0 表示不回收，
+ * 失效的连接由 TCP keepalive 发现）；未登录的连接同样按这个超时处理。
+ *
+ * 收到消息时只更新连接上的时间戳，不需要调整定时任务，因此每条消息的开销是一次 volatile 写，
+ * 每个 tick 只处理到期的连接，与连接总数无关
+ */
+public class HeartbeatMonitor {
+
+    private static final OutboundMessage PING = OutboundMessage.of(Protocol.buildMessage(Protocol.PING));
+
+    private final TimingWheel wheel;
+    private final long pingIntervalNanos;
+    private final long idleTimeoutNanos;
+    private final long legacyIdleTimeoutNanos;
+    private final LongAdder idleClosed = Metrics.counter("connections.idleClosed");
+
+    /**
+     * @param pingIntervalMs       连接空闲多久后发送 PING
+     * @param idleTimeoutMs        支持心跳的连接空闲多久后断开
+     * @param legacyIdleTimeoutMs  不支持心跳的连接空闲多久后断开，0 表示不断开
+     */
+    public HeartbeatMonitor(TimingWheel wheel, long pingIntervalMs, long idleTimeoutMs, long legacyIdleTimeoutMs) {
+        this.wheel = wheel;
+        this.pingIntervalNanos = TimeUnit.MILLISECONDS.toNanos(pingIntervalMs);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMs);
+        this.legacyIdleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(legacyIdleTimeoutMs);
+    }
+
+    /**
+     * 开始跟踪新连接
+     */
+    public void register(ClientHandler client) {
+        schedule(client, pingIntervalNanos);
+    }
+
+    /**
+     * 因空闲超时断开的连接数
+     */
+    public long getIdleClosed() {
+        return idleClosed.sum();
+    }
+
+    private void check(ClientHandler client) {
+        if (client.isDisconnected()) {
+            return;
+        }
+
+        boolean heartbeat = client.isHeartbeatEnabled();
+        long timeout = heartbeat ? idleTimeoutNanos : legacyIdleTimeoutNanos;
+        long idle = System.nanoTime() - client.getLastReadNanos();
+        if (timeout > 0 && idle >= timeout) {
+            idleClosed.increment();
+            Log.info("客户端 " + describe(client) + " 空闲 " + TimeUnit.NANOSECONDS.toSeconds(idle) + " 秒无响应，断开连接");
+            client.disconnect();
+            return;
+        }
+
+        long next;
+        if (idle >= pingIntervalNanos) {
+            // 已空闲一个心跳间隔：支持心跳的连接发送 PING，在超时前再检查一次
+            if (heartbeat) {
+                client.sendMessage(PING);
+            }
+            next = timeout > 0 ? Math.min(pingIntervalNanos, timeout - idle) : pingIntervalNanos;
+        } else {
+            // 期间收到过消息：等到空闲满一个心跳间隔再检查
+            next = pingIntervalNanos - idle;
+        }
+        schedule(client, next);
+    }
+
+    private void schedule(ClientHandler client, long delayNanos) {
+        wheel.schedule(() -> check(client), TimeUnit.NANOSECONDS.toMillis(delayNanos) + 1);
+    }
+
+    private static String describe(ClientHandler client) {
+        String username = client.getUsername();
+        return username != null ? username : client.getRemoteAddress();
+    }
+}
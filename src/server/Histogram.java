@@ -0,0 +1,174 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁直方图（HDR 风格的对数-线性分桶）
+ * 每个 2 的幂区间再等分为 {@link #SUB_BUCKETS} 个桶，相对误差不超过 1/SUB_BUCKETS（约 6%），
+ * 全部桶覆盖 0 到 Long.MAX_VALUE，不需要预先指定范围。
+ *
+ * 记录只是对一个计数槽的原子加一。计数按线程分散到多个条带上（与 LongAdder 的思路相同），
+ * 多个线程同时记录时不会争用同一个缓存行；读取时把各条带相加。
+ * 计时类直方图的值以纳秒为单位
+ */
+public final class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS; // 每个 2 的幂区间的桶数
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    private static final int MAX_STRIPES = 16; // 每个条带约 7.5 KB
+    private static final int STRIPES = stripeCount();
+
+    private final String name;
+    private final boolean nanos; // 值是否为纳秒
+    private final AtomicLongArray[] counts = new AtomicLongArray[STRIPES];
+    private final AtomicLongArray[] sums = new AtomicLongArray[STRIPES]; // 每条带两个元素：[0] 总和 [1] 最大值
+
+    Histogram(String name, boolean nanos) {
+        this.name = name;
+        this.nanos = nanos;
+        for (int i = 0; i < STRIPES; i++) {
+            counts[i] = new AtomicLongArray(BUCKET_COUNT);
+            sums[i] = new AtomicLongArray(2);
+        }
+    }
+
+    /**
+     * 记录一个值（负数按 0 记录）
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        counts[stripe].incrementAndGet(bucketOf(value));
+        AtomicLongArray sum = sums[stripe];
+        sum.addAndGet(0, value);
+        long max;
+        while (value > (max = sum.get(1)) && !sum.compareAndSet(1, max, value)) {
+            // 其他线程更新了最大值，重试
+        }
+    }
+
+    /**
+     * 记录从 startNanos（System.nanoTime()）到现在的耗时
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 值是否为纳秒（输出时换算为微秒）
+     */
+    public boolean isNanos() {
+        return nanos;
+    }
+
+    /**
+     * 合并各条带，得到当前的快照
+     */
+    public Snapshot snapshot() {
+        long[] merged = new long[BUCKET_COUNT];
+        long count = 0;
+        long sum = 0;
+        long max = 0;
+        for (int s = 0; s < STRIPES; s++) {
+            AtomicLongArray stripe = counts[s];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                long c = stripe.get(i);
+                merged[i] += c;
+                count += c;
+            }
+            sum += sums[s].get(0);
+            max = Math.max(max, sums[s].get(1));
+        }
+        return new Snapshot(merged, count, sum, max);
+    }
+
+    /**
+     * 直方图快照
+     */
+    public static final class Snapshot {
+        private final long[] buckets;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] buckets, long count, long sum, long max) {
+            this.buckets = buckets;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * 分位数（返回所在桶的上界，不超过最大值）
+         *
+         * @param quantile 0-1 之间，例如 0.99
+         */
+        public long getValueAtQuantile(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= target) {
+                    return Math.min(upperBound(i), max);
+                }
+            }
+            return max;
+        }
+    }
+
+    /**
+     * 值所在的桶：小于 SUB_BUCKETS 的值各占一个桶，更大的值按最高位所在的 2 的幂区间分组，
+     * 区间内按最高位之后的 SUB_BUCKET_BITS 位再分桶
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * 桶内的最大值
+     */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    private static int stripeCount() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int stripes = 1;
+        while (stripes < cores * 2 && stripes < MAX_STRIPES) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+}
@@ -0,0 +1,86 @@
+package server;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 可加入房间索引
+ * 按房间的入座状态分成三个无锁队列，快速加入时依次从优先级最高的队列中取出房间：
+ * <ol>
+ * <li>等待对手：一个对战席有人，另一个空着，加入者直接坐下即可开局</li>
+ * <li>空闲席位：两个对战席都空着</li>
+ * <li>仅可观战：对战席已满或对战进行中</li>
+ * </ol>
+ *
+ * 房间状态变化时由 GameSession 重新登记。队列采用延迟删除：
+ * 状态变化后旧队列中的条目不会立即移除，取出时发现状态已不符才丢弃；
+ * 房间关闭时则立即从所在队列中移除，否则很少快速加入的服务器会一直持有已关闭房间的引用。
+ * 每个房间在每个队列中至多出现一次，取出的房间在加入完成后由状态推送重新入队，
+ * 因此大量并发的快速加入会被分散到不同房间，而不是争抢同一个房间
+ */
+public class JoinableRoomIndex {
+
+    /** 等待对手 */
+    public static final int STATE_WAITING_OPPONENT = 0;
+
+    /** 空闲席位 */
+    public static final int STATE_OPEN_SEAT = 1;
+
+    /** 仅可观战 */
+    public static final int STATE_SPECTATE_ONLY = 2;
+
+    /** 房间已关闭 */
+    public static final int STATE_CLOSED = -1;
+
+    private static final int STATE_COUNT = 3;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final ConcurrentLinkedQueue<GameSession>[] queues = new ConcurrentLinkedQueue[STATE_COUNT];
+
+    public JoinableRoomIndex() {
+        for (int i = 0; i < STATE_COUNT; i++) {
+            queues[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * 按房间当前状态登记（已在对应队列中时不重复登记）
+     */
+    public void update(GameSession session) {
+        int state = session.getJoinState();
+        if (state != STATE_CLOSED && session.markQueued(state)) {
+            queues[state].offer(session);
+        }
+    }
+
+    /**
+     * 从所有队列中移除房间（房间关闭时在房间锁内调用，之后不会再登记）
+     */
+    public void remove(GameSession session) {
+        int queued = session.takeQueued();
+        for (int state = 0; state < STATE_COUNT; state++) {
+            if ((queued & (1 << state)) != 0) {
+                queues[state].remove(session);
+            }
+        }
+    }
+
+    /**
+     * 取出最适合加入的房间
+     * 返回的房间已从索引中移除，调用方加入后由房间的状态推送重新登记
+     *
+     * @return 房间；没有可加入的房间时返回 null
+     */
+    public GameSession poll() {
+        for (int state = 0; state < STATE_COUNT; state++) {
+            GameSession session;
+            while ((session = queues[state].poll()) != null) {
+                session.clearQueued(state);
+                // 先清除标记再检查状态：检查之后的状态变化一定会重新入队
+                if (session.getJoinState() == state) {
+                    return session;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,81 @@
+package server;
+
+import common.RoomListDelta;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 大厅订阅推送
+ * 订阅了大厅的连接不再轮询 GET_ROOM_LIST，而是由服务器定时推送 ROOM_LIST_DELTA。
+ * 房间的创建、关闭和状态变化都已记录在 RoomDirectory 中，这里只按固定周期检查目录版本：
+ * 一个周期内的多次变化合并为每个订阅者的一批增量，目录没有变化时整个周期不做任何工作。
+ *
+ * 版本相同的订阅者共享同一条已编码的消息。
+ * 订阅和推送互斥：新订阅者的初始列表一定先于第一批增量发出，
+ * 推送周期也不会在订阅者登记之前就把目录版本记为已推送
+ */
+public class LobbyPublisher {
+
+    private final RoomDirectory roomDirectory;
+    private final Map<ClientHandler, Long> subscribers = new ConcurrentHashMap<>(); // 订阅者 -> 已推送到的版本
+    private long publishedVersion; // 上个周期推送时的目录版本（只在对象锁内访问）
+
+    public LobbyPublisher(RoomDirectory roomDirectory) {
+        this.roomDirectory = roomDirectory;
+    }
+
+    /**
+     * 订阅大厅，立即推送自客户端已知版本以来的变化
+     *
+     * @param sinceVersion 客户端已知的版本，0 表示没有本地列表
+     */
+    public synchronized void subscribe(ClientHandler client, long sinceVersion) {
+        RoomListDelta delta = roomDirectory.since(sinceVersion);
+        subscribers.put(client, delta.getVersion());
+        client.sendMessage(delta.toMessage());
+    }
+
+    /**
+     * 取消订阅（可重复调用）
+     */
+    public void unsubscribe(ClientHandler client) {
+        subscribers.remove(client);
+    }
+
+    /**
+     * 当前订阅者数量
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * 推送一个周期内累积的变化，由定时任务调用
+     */
+    public synchronized void publish() {
+        long version = roomDirectory.getVersion();
+        if (version == publishedVersion || subscribers.isEmpty()) {
+            publishedVersion = version;
+            return;
+        }
+        publishedVersion = version;
+
+        Map<Long, OutboundMessage> encoded = new HashMap<>();
+        for (Map.Entry<ClientHandler, Long> entry : subscribers.entrySet()) {
+            long sinceVersion = entry.getValue();
+            if (sinceVersion >= version) {
+                continue;
+            }
+            OutboundMessage message = encoded.get(sinceVersion);
+            if (message == null) {
+                message = OutboundMessage.of(roomDirectory.since(sinceVersion).toMessage());
+                encoded.put(sinceVersion, message);
+            }
+            // 订阅者可能刚刚取消订阅，只在仍然订阅时更新版本
+            if (subscribers.replace(entry.getKey(), sinceVersion, version)) {
+                entry.getKey().sendMessage(message);
+            }
+        }
+    }
+}
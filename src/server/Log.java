@@ -0,0 +1,261 @@
+package server;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 服务器日志
+ * 调用线程只把日志记录放入无锁环形缓冲区，由后台写日志线程批量格式化并写入日志文件，
+ * 不再在 System.out 的锁上互相等待。缓冲区满时丢弃新记录并计数，不阻塞调用线程。
+ *
+ * 配置（系统属性）：
+ * <ul>
+ * <li>fiveqi.logLevel：DEBUG/INFO/WARN/ERROR/OFF，默认 INFO</li>
+ * <li>fiveqi.logFile：日志文件，默认 logs/server.log；为空时不写文件</li>
+ * <li>fiveqi.logConsole：是否同时输出到控制台，默认 true</li>
+ * </ul>
+ *
+ * 热路径上的调试日志写成 {@code if (Log.DEBUG_ENABLED) Log.debug(...)}：
+ * 级别在类加载时确定，DEBUG_ENABLED 是常量，关闭时 JIT 会连同字符串拼接一起消除
+ */
+public final class Log {
+
+    public static final int DEBUG = 0;
+    public static final int INFO = 1;
+    public static final int WARN = 2;
+    public static final int ERROR = 3;
+    public static final int OFF = 4;
+
+    private static final String[] LEVEL_NAMES = {"DEBUG", "INFO ", "WARN ", "ERROR"};
+
+    private static final int BUFFER_CAPACITY = 8192; // 环形缓冲区容量（条）
+    private static final int BATCH_SIZE = 256; // 每批最多写入的条数，写完一批刷新一次
+    private static final long IDLE_PARK_NANOS = 10_000_000L; // 缓冲区为空时休眠 10 毫秒
+
+    /** 当前日志级别 */
+    public static final int LEVEL = parseLevel(System.getProperty("fiveqi.logLevel", "INFO"));
+
+    /** 是否输出调试日志（热路径上先判断再拼接消息） */
+    public static final boolean DEBUG_ENABLED = LEVEL <= DEBUG;
+
+    /**
+     * 一条日志记录
+     */
+    private static final class Record {
+        final long time;
+        final int level;
+        final String thread;
+        final String message;
+        final Throwable error;
+
+        Record(int level, String message, Throwable error) {
+            this.time = System.currentTimeMillis();
+            this.level = level;
+            this.thread = Thread.currentThread().getName();
+            this.message = message;
+            this.error = error;
+        }
+    }
+
+    private static final LogRingBuffer<Record> buffer = new LogRingBuffer<>(BUFFER_CAPACITY);
+    private static final LongAdder dropped = new LongAdder();
+    private static final Thread appender;
+    private static volatile boolean flushRequested;
+
+    static {
+        Writer file = null;
+        String path = System.getProperty("fiveqi.logFile", "logs/server.log");
+        if (LEVEL < OFF && !path.isEmpty()) {
+            try {
+                File logFile = new File(path);
+                File dir = logFile.getAbsoluteFile().getParentFile();
+                if (dir != null) {
+                    dir.mkdirs();
+                }
+                file = new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(logFile, true), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                System.err.println("无法打开日志文件 " + path + "，只输出到控制台: " + e.getMessage());
+            }
+        }
+        boolean console = Boolean.parseBoolean(System.getProperty("fiveqi.logConsole", "true"));
+
+        appender = new Thread(new Appender(file, console ? System.out : null), "log-appender");
+        appender.setDaemon(true);
+        appender.start();
+    }
+
+    private Log() {
+    }
+
+    public static void debug(String message) {
+        log(DEBUG, message, null);
+    }
+
+    public static void info(String message) {
+        log(INFO, message, null);
+    }
+
+    public static void warn(String message) {
+        log(WARN, message, null);
+    }
+
+    public static void error(String message) {
+        log(ERROR, message, null);
+    }
+
+    /**
+     * 记录错误及异常堆栈（堆栈在写日志线程中格式化）
+     */
+    public static void error(String message, Throwable error) {
+        log(ERROR, message, error);
+    }
+
+    /**
+     * 是否输出指定级别的日志
+     */
+    public static boolean isEnabled(int level) {
+        return level >= LEVEL;
+    }
+
+    /**
+     * 因缓冲区满而丢弃的日志条数
+     */
+    public static long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * 等待已提交的日志写出（最多等待指定毫秒数），用于服务器停止前
+     */
+    public static void flush(long timeoutMs) {
+        flushRequested = true;
+        LockSupport.unpark(appender);
+        long deadline = System.nanoTime() + timeoutMs * 1_000_000L;
+        while (flushRequested && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(1_000_000L);
+        }
+    }
+
+    private static void log(int level, String message, Throwable error) {
+        if (level < LEVEL) {
+            return;
+        }
+        if (!buffer.offer(new Record(level, message, error))) {
+            dropped.increment();
+        }
+    }
+
+    private static int parseLevel(String name) {
+        switch (name.trim().toUpperCase()) {
+            case "DEBUG":
+                return DEBUG;
+            case "WARN":
+                return WARN;
+            case "ERROR":
+                return ERROR;
+            case "OFF":
+                return OFF;
+            default:
+                return INFO;
+        }
+    }
+
+    /**
+     * 写日志线程：批量取出记录，格式化后写入文件和控制台
+     */
+    private static final class Appender implements Runnable {
+        private final Writer file;
+        private final PrintStream console;
+        private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        private final StringBuilder line = new StringBuilder(256);
+        private long reportedDropped;
+
+        Appender(Writer file, PrintStream console) {
+            this.file = file;
+            this.console = console;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                // 先读取刷新请求再取记录：清除请求前至少完整取过一轮
+                boolean flushing = flushRequested;
+                int count = 0;
+                Record record;
+                while (count < BATCH_SIZE && (record = buffer.poll()) != null) {
+                    write(record);
+                    count++;
+                }
+
+                long lost = dropped.sum();
+                if (lost != reportedDropped) {
+                    write(new Record(WARN, "日志缓冲区已满，丢弃 " + (lost - reportedDropped) + " 条日志", null));
+                    reportedDropped = lost;
+                    count++;
+                }
+
+                if (count > 0) {
+                    flushOutputs();
+                } else {
+                    // 缓冲区已空：完成刷新请求后休眠
+                    if (flushing) {
+                        flushRequested = false;
+                    }
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        }
+
+        private void write(Record record) {
+            line.setLength(0);
+            line.append(dateFormat.format(new Date(record.time)))
+                    .append(' ').append(LEVEL_NAMES[record.level])
+                    .append(" [").append(record.thread).append("] ")
+                    .append(record.message);
+            if (record.error != null) {
+                StringWriter trace = new StringWriter();
+                record.error.printStackTrace(new PrintWriter(trace));
+                line.append(System.lineSeparator()).append(trace.toString().trim());
+            }
+            String text = line.toString();
+
+            if (file != null) {
+                try {
+                    file.write(text);
+                    file.write(System.lineSeparator());
+                } catch (IOException e) {
+                    // 文件写入失败时仍输出到控制台
+                }
+            }
+            if (console != null) {
+                console.println(text);
+            }
+        }
+
+        private void flushOutputs() {
+            if (file != null) {
+                try {
+                    file.flush();
+                } catch (IOException e) {
+                    // 忽略，下一批继续尝试
+                }
+            }
+            if (console != null) {
+                console.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 有界无锁环形缓冲区（多生产者、单消费者）
+ * 每个槽带一个序号：序号等于写入位置时槽可写，等于写入位置加一时槽可读。
+ * 生产者通过 CAS 抢占写入位置，写入元素后再发布序号；消费者只读自己的读取位置，不需要 CAS。
+ * 缓冲区满时 offer 立即返回 false，调用方决定丢弃还是重试，不会阻塞
+ */
+final class LogRingBuffer<E> {
+
+    private final Object[] items;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong(); // 下一个写入位置（生产者共享）
+    private long head; // 下一个读取位置（只由消费者访问）
+
+    /**
+     * @param capacity 容量（向上取整为 2 的幂）
+     */
+    LogRingBuffer(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.items = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * 写入元素（任意线程可调用）
+     *
+     * @return 缓冲区已满时返回 false
+     */
+    boolean offer(E item) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    items[index] = item;
+                    sequences.lazySet(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                // 该槽上一轮的元素还没被消费
+                return false;
+            } else {
+                // 其他生产者已抢占该位置
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 取出元素（只能由消费者线程调用）
+     *
+     * @return 没有可读元素时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        E item = (E) items[index];
+        items[index] = null;
+        sequences.lazySet(index, head + mask + 1);
+        head++;
+        return item;
+    }
+}
@@ -0,0 +1,163 @@
+package server;
+
+import common.Protocol;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 服务器指标注册表
+ * 计数器使用 LongAdder，直方图使用按线程分条带的 {@link Histogram}，记录路径上没有锁，可以常开。
+ * 仪表（gauge）在读取时才计算当前值。
+ *
+ * 热路径上使用的指标预先创建为静态常量，避免每次记录都查找名称
+ */
+public final class Metrics {
+
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private static final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    /** GameSession.handleMove 耗时（含等待房间锁） */
+    public static final Histogram MOVE_TIME = timer("room.move");
+
+    /** 一次广播写入所有接收者发送队列的耗时 */
+    public static final Histogram BROADCAST_TIME = timer("broadcast.time");
+
+    /** 一次广播的接收者数量 */
+    public static final Histogram BROADCAST_FANOUT = histogram("broadcast.fanout");
+
+    /** 放入发送队列的消息数 */
+    public static final LongAdder OUTBOUND_MESSAGES = counter("outbound.messages");
+
+    /** 放入发送队列的字节数 */
+    public static final LongAdder OUTBOUND_BYTES = counter("outbound.bytes");
+
+    /** 低优先级发送通道已满而丢弃的消息数 */
+    public static final LongAdder OUTBOUND_BULK_DROPPED = counter("outbound.bulkDropped");
+
+    // 每个客户端指令一个耗时直方图，指令名是协议常量，按引用查找
+    private static final Map<String, Histogram> commandTimers = new IdentityHashMap<>();
+    private static final Histogram UNKNOWN_COMMAND_TIME = timer("command.UNKNOWN");
+
+    static {
+        for (String command : Protocol.CLIENT_COMMANDS) {
+            commandTimers.put(command, timer("command." + command));
+        }
+        gauge("jvm.threads", () -> ManagementFactory.getThreadMXBean().getThreadCount());
+        gauge("jvm.heapUsed", () -> {
+            Runtime runtime = Runtime.getRuntime();
+            return runtime.totalMemory() - runtime.freeMemory();
+        });
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * 获取或创建计数器
+     */
+    public static LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    /**
+     * 获取或创建耗时直方图（纳秒）
+     */
+    public static Histogram timer(String name) {
+        return histograms.computeIfAbsent(name, k -> new Histogram(k, true));
+    }
+
+    /**
+     * 获取或创建数值直方图
+     */
+    public static Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, k -> new Histogram(k, false));
+    }
+
+    /**
+     * 注册仪表（同名时替换）
+     */
+    public static void gauge(String name, LongSupplier supplier) {
+        gauges.put(name, supplier);
+    }
+
+    /**
+     * 客户端指令的耗时直方图
+     *
+     * @param command MessageParser.nextCommand 返回的指令（已知指令是协议常量本身）
+     */
+    public static Histogram commandTimer(String command) {
+        Histogram timer = commandTimers.get(command);
+        return timer != null ? timer : UNKNOWN_COMMAND_TIME;
+    }
+
+    /**
+     * 按名称排序的计数器当前值
+     */
+    public static Map<String, Long> counterValues() {
+        Map<String, Long> values = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().sum());
+        }
+        return values;
+    }
+
+    /**
+     * 按名称排序的仪表当前值
+     */
+    public static Map<String, Long> gaugeValues() {
+        Map<String, Long> values = new TreeMap<>();
+        for (Map.Entry<String, LongSupplier> entry : gauges.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().getAsLong());
+        }
+        return values;
+    }
+
+    /**
+     * 按名称排序的直方图
+     */
+    public static Map<String, Histogram> histograms() {
+        return new TreeMap<>(histograms);
+    }
+
+    /**
+     * 状态摘要（用于定时打印）：计数器和仪表一行，每个有数据的直方图一行，耗时单位为微秒
+     */
+    public static List<String> summaryLines() {
+        List<String> lines = new ArrayList<>();
+        StringBuilder sb = new StringBuilder("指标:");
+        for (Map.Entry<String, Long> entry : counterValues().entrySet()) {
+            sb.append(' ').append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        for (Map.Entry<String, Long> entry : gaugeValues().entrySet()) {
+            sb.append(' ').append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        lines.add(sb.toString());
+
+        for (Histogram histogram : histograms().values()) {
+            Histogram.Snapshot snapshot = histogram.snapshot();
+            if (snapshot.getCount() == 0) {
+                continue;
+            }
+            double scale = histogram.isNanos() ? 1000.0 : 1.0;
+            lines.add(String.format("  %-28s n=%d 平均=%.1f p50=%.1f p90=%.1f p99=%.1f p999=%.1f 最大=%.1f%s",
+                    histogram.getName(),
+                    snapshot.getCount(),
+                    snapshot.getMean() / scale,
+                    snapshot.getValueAtQuantile(0.50) / scale,
+                    snapshot.getValueAtQuantile(0.90) / scale,
+                    snapshot.getValueAtQuantile(0.99) / scale,
+                    snapshot.getValueAtQuantile(0.999) / scale,
+                    snapshot.getMax() / scale,
+                    histogram.isNanos() ? " (微秒)" : ""));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,251 @@
+package server;
+
+import common.FrameDecoder;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * NIO 模式连接
+ * 读取在所属事件循环线程上进行，分帧后交给 ClientHandler；
+ * 发送只是进入有界队列，实际写出由事件循环完成（多条消息合并为一次聚集写），
+ * 调用方不会阻塞在套接字上。
+ * 低优先级消息（聊天、系统提示）进入单独的通道，每批先取普通通道再取低优先级通道
+ */
+public class NioConnection implements Connection {
+
+    /** 单条消息最大长度，超过视为异常连接 */
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    /** 单次聚集写最多合并的消息数 */
+    private static final int MAX_GATHER = 64;
+
+    private SocketChannel channel;
+    private NioTransport.EventLoop loop;
+    private SelectionKey key;
+    private ClientHandler handler;
+    private String remoteAddress;
+
+    // 读取状态（仅事件循环线程访问）
+    private ByteBuffer readBuffer = ByteBuffer.allocate(8192);
+    private FrameDecoder decoder = new FrameDecoder(MAX_LINE_LENGTH);
+
+    // 写出状态
+    private Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+    private AtomicInteger outboundSize = new AtomicInteger();
+    private int outboundCapacity;
+    private Queue<ByteBuffer> bulkOutbound = new ConcurrentLinkedQueue<>(); // 低优先级通道
+    private AtomicInteger bulkSize = new AtomicInteger();
+    private int bulkCapacity;
+
+    // 已从队列取出、正在写出的一批消息（仅事件循环线程访问）
+    // 写完这一批才取下一批，部分写出的消息不会被后到的高优先级消息插队
+    private ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+    private boolean[] gatherBulk = new boolean[MAX_GATHER];
+    private int gatherStart;
+    private int gatherEnd;
+    private AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private AtomicBoolean closed = new AtomicBoolean(false);
+    private volatile boolean binary;
+
+    NioConnection(SocketChannel channel, NioTransport.EventLoop loop, int outboundCapacity, int bulkCapacity) {
+        this.channel = channel;
+        this.loop = loop;
+        this.outboundCapacity = outboundCapacity;
+        this.bulkCapacity = bulkCapacity;
+        this.remoteAddress = String.valueOf(channel.socket().getInetAddress());
+    }
+
+    void setHandler(ClientHandler handler) {
+        this.handler = handler;
+    }
+
+    ClientHandler getHandler() {
+        return handler;
+    }
+
+    /**
+     * 在事件循环线程上注册到 Selector
+     */
+    void register(Selector selector) throws ClosedChannelException {
+        key = channel.register(selector, SelectionKey.OP_READ, this);
+        // 注册前可能已有待发送消息
+        if (!outbound.isEmpty() || !bulkOutbound.isEmpty()) {
+            flush();
+        }
+    }
+
+    /**
+     * 处理可读事件：读取数据并分帧分发
+     */
+    void onReadable() {
+        int n;
+        try {
+            n = channel.read(readBuffer);
+        } catch (IOException e) {
+            if (!closed.get()) {
+                Log.error("客户端 " + handler.getUsername() + " 连接异常: " + e.getMessage());
+            }
+            handler.disconnect();
+            return;
+        }
+
+        if (n < 0) {
+            handler.disconnect();
+            return;
+        }
+
+        try {
+            decoder.feed(readBuffer.array(), 0, readBuffer.position(), handler);
+        } catch (IOException e) {
+            Log.error("客户端 " + handler.getUsername() + " 数据格式异常，断开连接: " + e.getMessage());
+            handler.disconnect();
+            return;
+        }
+        readBuffer.clear();
+    }
+
+    @Override
+    public int send(OutboundMessage message) {
+        if (closed.get()) {
+            return 0;
+        }
+        if (message.isBulk()) {
+            if (bulkSize.incrementAndGet() > bulkCapacity) {
+                // 低优先级通道已满：只丢弃这条消息
+                bulkSize.decrementAndGet();
+                Metrics.OUTBOUND_BULK_DROPPED.increment();
+                return 0;
+            }
+            return enqueue(bulkOutbound, message);
+        }
+        if (outboundSize.incrementAndGet() > outboundCapacity) {
+            // 队列已满：对端消费过慢，关闭连接，清理工作交给事件循环（避免在持有房间锁时重入）
+            outboundSize.decrementAndGet();
+            Log.warn("客户端 " + remoteAddress + " 发送队列已满，断开连接");
+            close();
+            loop.scheduleFlush(this);
+            return 0;
+        }
+        return enqueue(outbound, message);
+    }
+
+    private int enqueue(Queue<ByteBuffer> lane, OutboundMessage message) {
+        ByteBuffer buffer = message.newBuffer(binary);
+        int length = buffer.remaining();
+        Metrics.OUTBOUND_MESSAGES.increment();
+        Metrics.OUTBOUND_BYTES.add(length);
+        lane.add(buffer);
+        if (flushScheduled.compareAndSet(false, true)) {
+            loop.scheduleFlush(this);
+        }
+        return length;
+    }
+
+    /**
+     * 在事件循环线程上尽可能多地写出待发送数据
+     * 写不完时注册 OP_WRITE，等套接字可写后继续
+     */
+    void flush() {
+        if (closed.get()) {
+            handler.disconnect();
+            return;
+        }
+        if (key == null || !key.isValid()) {
+            return;
+        }
+        try {
+            while (true) {
+                if (gatherStart == gatherEnd) {
+                    gatherStart = 0;
+                    gatherEnd = stage();
+                }
+
+                if (gatherStart < gatherEnd) {
+                    // 聚集的多条消息一次系统调用写出
+                    channel.write(gather, gatherStart, gatherEnd - gatherStart);
+                    while (gatherStart < gatherEnd && !gather[gatherStart].hasRemaining()) {
+                        (gatherBulk[gatherStart] ? bulkSize : outboundSize).decrementAndGet();
+                        gather[gatherStart++] = null;
+                    }
+                    if (gatherStart < gatherEnd) {
+                        // 发送缓冲区已满，等待可写事件
+                        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    continue;
+                }
+
+                flushScheduled.set(false);
+                // 清除标记后可能又有新消息入队，需要再检查一次
+                if ((outbound.isEmpty() && bulkOutbound.isEmpty()) || !flushScheduled.compareAndSet(false, true)) {
+                    break;
+                }
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        } catch (IOException e) {
+            handler.disconnect();
+        }
+    }
+
+    /**
+     * 从队列取出下一批消息：先取普通通道，再用低优先级消息补满
+     *
+     * @return 取出的消息数
+     */
+    private int stage() {
+        int count = 0;
+        ByteBuffer buffer;
+        while (count < MAX_GATHER && (buffer = outbound.poll()) != null) {
+            gather[count] = buffer;
+            gatherBulk[count++] = false;
+        }
+        while (count < MAX_GATHER && (buffer = bulkOutbound.poll()) != null) {
+            gather[count] = buffer;
+            gatherBulk[count++] = true;
+        }
+        return count;
+    }
+
+    @Override
+    public void setBinary(boolean binary) {
+        this.binary = binary;
+        decoder.setBinary(binary);
+    }
+
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        outbound.clear();
+        bulkOutbound.clear();
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            Log.error("关闭连接异常: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed.get() && channel.isOpen();
+    }
+
+    @Override
+    public String getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    @Override
+    public int getPendingCount() {
+        return outboundSize.get() + bulkSize.get();
+    }
+}
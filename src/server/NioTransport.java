@@ -0,0 +1,208 @@
+package server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.*;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * NIO 传输层
+ * 接受线程负责 accept，少量固定的事件循环线程通过 Selector 处理所有连接的读写，
+ * 空闲连接不再占用独立线程
+ */
+public class NioTransport {
+
+    private Server server;
+    private int port;
+    private int outboundCapacity;
+    private int outboundBulkCapacity;
+    private EventLoop[] loops;
+    private Thread[] loopThreads;
+    private ServerSocketChannel serverChannel;
+    private volatile boolean running;
+
+    public NioTransport(Server server, int port, int loopCount, int outboundCapacity, int outboundBulkCapacity) {
+        this.server = server;
+        this.port = port;
+        this.outboundCapacity = outboundCapacity;
+        this.outboundBulkCapacity = outboundBulkCapacity;
+        this.loops = new EventLoop[loopCount];
+        this.loopThreads = new Thread[loopCount];
+    }
+
+    /**
+     * 绑定监听端口（端口被占用时在这里失败，之后再启动其他服务）
+     */
+    public void bind() throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(new InetSocketAddress(port));
+        } catch (IOException e) {
+            serverChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 启动事件循环并在当前线程接受连接（阻塞直到停止），尚未绑定时先绑定端口
+     */
+    public void start() throws IOException {
+        if (serverChannel == null) {
+            bind();
+        }
+        running = true;
+
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop(Selector.open());
+            loopThreads[i] = new Thread(loops[i], "nio-loop-" + i);
+            loopThreads[i].setDaemon(true);
+            loopThreads[i].start();
+        }
+
+        Log.info("服务器启动成功（NIO模式，" + loops.length + " 个事件循环），监听端口: " + port);
+
+        int next = 0;
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                channel.socket().setKeepAlive(true); // 不支持心跳的客户端断线后由 TCP keepalive 发现
+                Log.info("新客户端连接: " + channel.socket().getInetAddress());
+
+                // 轮询分配到事件循环
+                EventLoop loop = loops[next];
+                next = (next + 1) % loops.length;
+
+                NioConnection connection = new NioConnection(channel, loop, outboundCapacity, outboundBulkCapacity);
+                ClientHandler handler = new ClientHandler(connection, server);
+                connection.setHandler(handler);
+                server.trackConnection(handler);
+                loop.register(connection);
+
+            } catch (ClosedChannelException e) {
+                break;
+            } catch (IOException e) {
+                if (running) {
+                    Log.error("接受连接异常: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 停止接受连接并关闭所有事件循环
+     */
+    public void stop() {
+        running = false;
+        try {
+            if (serverChannel != null) {
+                serverChannel.close();
+            }
+        } catch (IOException e) {
+            Log.error("关闭服务器通道异常: " + e.getMessage());
+        }
+        for (EventLoop loop : loops) {
+            if (loop != null) {
+                loop.shutdown();
+            }
+        }
+    }
+
+    /**
+     * 单个事件循环：一个 Selector 加上跨线程提交的注册/写请求队列
+     */
+    class EventLoop implements Runnable {
+
+        private Selector selector;
+        private Queue<NioConnection> pendingRegistrations = new ConcurrentLinkedQueue<>();
+        private Queue<NioConnection> pendingFlushes = new ConcurrentLinkedQueue<>();
+        private volatile boolean open = true;
+
+        EventLoop(Selector selector) {
+            this.selector = selector;
+        }
+
+        /**
+         * 将新连接交给本事件循环
+         */
+        void register(NioConnection connection) {
+            pendingRegistrations.add(connection);
+            selector.wakeup();
+        }
+
+        /**
+         * 请求在事件循环线程上刷新指定连接的待发送数据
+         */
+        void scheduleFlush(NioConnection connection) {
+            pendingFlushes.add(connection);
+            selector.wakeup();
+        }
+
+        void shutdown() {
+            open = false;
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (open) {
+                try {
+                    selector.select();
+                    processRegistrations();
+                    processFlushes();
+
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        NioConnection connection = (NioConnection) key.attachment();
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isReadable()) {
+                            connection.onReadable();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.flush();
+                        }
+                    }
+                } catch (IOException e) {
+                    Log.error("事件循环异常: " + e.getMessage());
+                } catch (Exception e) {
+                    Log.error("事件循环处理异常: " + e.getMessage(), e);
+                }
+            }
+
+            // 关闭本循环上所有连接
+            for (SelectionKey key : selector.keys()) {
+                ((NioConnection) key.attachment()).close();
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                Log.error("关闭Selector异常: " + e.getMessage());
+            }
+        }
+
+        private void processRegistrations() {
+            NioConnection connection;
+            while ((connection = pendingRegistrations.poll()) != null) {
+                try {
+                    connection.register(selector);
+                } catch (ClosedChannelException e) {
+                    connection.getHandler().disconnect();
+                }
+            }
+        }
+
+        private void processFlushes() {
+            NioConnection connection;
+            while ((connection = pendingFlushes.poll()) != null) {
+                connection.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package server;
+
+import common.BinaryProtocol;
+import common.Protocol;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 已编码的待发送消息
+ * 消息只做一次 UTF-8 编码，之后以只读形式在所有接收者的发送路径间共享，
+ * 广播给成百上千名观战者时不再逐个重新编码。
+ * 二进制帧在第一个二进制协议接收者需要时才编码，同样只编码一次
+ *
+ * 聊天和系统提示属于低优先级消息（{@link #isBulk()}），在发送队列中走单独的通道：
+ * 有落子、对局和席位等消息等待发送时先发送后者，低优先级通道积压过多时直接丢弃新消息而不断开连接。
+ * 其余消息会改变客户端的棋盘或房间状态，必须保持相互之间的顺序，因此共用同一个通道
+ */
+public final class OutboundMessage {
+
+    private final String text;
+    private final byte[] bytes;
+    private final ByteBuffer buffer;
+    private final boolean bulk;
+    private volatile byte[] binaryBytes;
+    private volatile ByteBuffer binaryBuffer;
+
+    private OutboundMessage(String text) {
+        this.text = text;
+        this.bytes = (text + "\n").getBytes(StandardCharsets.UTF_8);
+        this.buffer = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+        this.bulk = isCommand(text, Protocol.CHAT_MSG) || isCommand(text, Protocol.SYSTEM);
+    }
+
+    /**
+     * 编码协议消息（去除首尾空白并以换行符结束）
+     */
+    public static OutboundMessage of(String message) {
+        return new OutboundMessage(message.trim());
+    }
+
+    /**
+     * 共享的字节数组，调用方不得修改
+     *
+     * @param binary 是否需要二进制帧编码
+     */
+    byte[] bytes(boolean binary) {
+        return binary ? binaryBytes() : bytes;
+    }
+
+    /**
+     * 为一个接收者创建独立读取位置的只读视图（不复制数据）
+     *
+     * @param binary 是否需要二进制帧编码
+     */
+    ByteBuffer newBuffer(boolean binary) {
+        if (binary) {
+            binaryBytes();
+            return binaryBuffer.duplicate();
+        }
+        return buffer.duplicate();
+    }
+
+    /**
+     * 编码后的字节数（文本协议）
+     */
+    public int length() {
+        return bytes.length;
+    }
+
+    /**
+     * 是否为低优先级消息（聊天、系统提示）
+     */
+    public boolean isBulk() {
+        return bulk;
+    }
+
+    private static boolean isCommand(String text, String command) {
+        return text.startsWith(command)
+                && (text.length() == command.length() || text.startsWith(Protocol.DELIMITER, command.length()));
+    }
+
+    /**
+     * 延迟编码二进制帧；并发首次调用时可能重复编码，结果相同，无需加锁
+     */
+    private byte[] binaryBytes() {
+        byte[] encoded = binaryBytes;
+        if (encoded == null) {
+            encoded = BinaryProtocol.encode(text);
+            binaryBuffer = ByteBuffer.wrap(encoded).asReadOnlyBuffer();
+            binaryBytes = encoded;
+        }
+        return encoded;
+    }
+}
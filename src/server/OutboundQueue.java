@@ -0,0 +1,165 @@
+package server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 单个连接的有界发送队列
+ * 发送方只负责入队（不会阻塞在套接字上），由专门的写线程取出所有待发送消息，
+ * 合并到一个缓冲区后一次写出并刷新。队列满说明对端消费过慢，直接拒绝入队。
+ *
+ * 低优先级消息（聊天、系统提示）进入单独的通道，写线程每轮先取完普通通道再取低优先级通道；
+ * 低优先级通道有自己的容量上限，满了只丢弃新消息
+ */
+public class OutboundQueue implements Runnable {
+
+    /** 合并缓冲区上限，超过此大小的单条消息直接写出 */
+    private static final int MAX_COALESCE_BYTES = 64 * 1024;
+
+    private OutputStream output;
+    private int capacity;
+    private int bulkCapacity;
+    private Queue<byte[]> queue = new ConcurrentLinkedQueue<>();
+    private AtomicInteger size = new AtomicInteger();
+    private Queue<byte[]> bulkQueue = new ConcurrentLinkedQueue<>(); // 低优先级通道
+    private AtomicInteger bulkSize = new AtomicInteger();
+    private volatile Thread writerThread;
+    private volatile boolean closed;
+
+    // 合并缓冲区（仅写线程访问），按需增长，空闲连接只占用很少内存
+    private byte[] scratch = new byte[512];
+
+    /**
+     * @param capacity     普通通道的最大消息数
+     * @param bulkCapacity 低优先级通道的最大消息数
+     */
+    public OutboundQueue(OutputStream output, int capacity, int bulkCapacity) {
+        this.output = output;
+        this.capacity = capacity;
+        this.bulkCapacity = bulkCapacity;
+    }
+
+    /**
+     * 消息入队
+     *
+     * @param message 已编码的完整消息（含换行符）
+     * @return 是否入队成功，队列已满或已关闭时返回 false
+     */
+    public boolean offer(byte[] message) {
+        if (closed) {
+            return false;
+        }
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            return false;
+        }
+        queue.add(message);
+        LockSupport.unpark(writerThread);
+        return true;
+    }
+
+    /**
+     * 低优先级消息入队
+     *
+     * @param message 已编码的完整消息（含换行符）
+     * @return 是否入队成功，低优先级通道已满或已关闭时返回 false
+     */
+    public boolean offerBulk(byte[] message) {
+        if (closed) {
+            return false;
+        }
+        if (bulkSize.incrementAndGet() > bulkCapacity) {
+            bulkSize.decrementAndGet();
+            return false;
+        }
+        bulkQueue.add(message);
+        LockSupport.unpark(writerThread);
+        return true;
+    }
+
+    /**
+     * 关闭队列，写线程退出，未发送的消息被丢弃
+     */
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writerThread);
+    }
+
+    /**
+     * 当前排队的消息数（两个通道合计）
+     */
+    public int size() {
+        return size.get() + bulkSize.get();
+    }
+
+    /**
+     * 写线程主循环
+     */
+    @Override
+    public void run() {
+        writerThread = Thread.currentThread();
+        try {
+            while (!closed) {
+                if (queue.isEmpty() && bulkQueue.isEmpty()) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                writePending();
+            }
+        } catch (IOException e) {
+            // 写失败说明连接已断开，由读线程负责清理
+            closed = true;
+        } finally {
+            writerThread = null;
+            queue.clear();
+            bulkQueue.clear();
+        }
+    }
+
+    /**
+     * 取出当前所有待发送消息（普通通道优先），合并后一次写出并刷新
+     */
+    private void writePending() throws IOException {
+        int length = 0;
+        byte[] message;
+        while (true) {
+            message = queue.poll();
+            if (message != null) {
+                size.decrementAndGet();
+            } else if ((message = bulkQueue.poll()) != null) {
+                bulkSize.decrementAndGet();
+            } else {
+                break;
+            }
+
+            if (length + message.length > scratch.length) {
+                if (length + message.length <= MAX_COALESCE_BYTES) {
+                    byte[] grown = new byte[Math.min(MAX_COALESCE_BYTES,
+                            Math.max(scratch.length * 2, length + message.length))];
+                    System.arraycopy(scratch, 0, grown, 0, length);
+                    scratch = grown;
+                } else {
+                    // 缓冲区已满：先写出已合并的部分
+                    output.write(scratch, 0, length);
+                    length = 0;
+                    if (message.length > scratch.length) {
+                        output.write(message);
+                        continue;
+                    }
+                }
+            }
+
+            System.arraycopy(message, 0, scratch, length, message.length);
+            length += message.length;
+        }
+
+        if (length > 0) {
+            output.write(scratch, 0, length);
+        }
+        output.flush();
+    }
+}
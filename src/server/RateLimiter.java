@@ -0,0 +1,101 @@
+package server;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个连接的入站指令限流
+ * 每个令牌桶只保存一个时间戳（GCRA：理论到达时间），取令牌就是比较并推进这个时间戳，
+ * 补充令牌不需要定时任务，检查过程不分配对象。
+ *
+ * 超限时按违规次数逐级处理：先静默丢弃，达到警告阈值时回复一次 ERROR，达到断开阈值时断开连接。
+ * 一段时间没有违规后违规次数清零。
+ *
+ * 同一连接的消息总在同一线程上顺序处理，因此不需要同步
+ */
+public final class RateLimiter {
+
+    /** 放行 */
+    public static final int ALLOW = 0;
+
+    /** 丢弃 */
+    public static final int DROP = 1;
+
+    /** 丢弃并警告 */
+    public static final int WARN = 2;
+
+    /** 断开连接 */
+    public static final int DISCONNECT = 3;
+
+    /** 多久没有违规后清零违规次数 */
+    private static final long VIOLATION_RESET_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private static final LongAdder DROPPED = Metrics.counter("rateLimit.dropped");
+    private static final LongAdder WARNED = Metrics.counter("rateLimit.warned");
+    private static final LongAdder DISCONNECTED = Metrics.counter("rateLimit.disconnected");
+
+    private final RateLimits limits;
+    private final long[] allowAt; // 每个桶下一个令牌的理论到达时间（System.nanoTime()）
+    private int violations;
+    private long lastViolationNanos;
+
+    public RateLimiter(RateLimits limits) {
+        this.limits = limits;
+        this.allowAt = new long[limits.bucketCount()];
+        long now = System.nanoTime();
+        for (int i = 0; i < allowAt.length; i++) {
+            allowAt[i] = now;
+        }
+    }
+
+    /**
+     * 为一条指令取令牌
+     *
+     * @param command MessageParser.nextCommand 返回的指令
+     * @return ALLOW/DROP/WARN/DISCONNECT
+     */
+    public int acquire(String command) {
+        int bucket = limits.bucketOf(command);
+        long interval = limits.intervalNanos(bucket);
+        if (interval == 0) {
+            return ALLOW;
+        }
+
+        long now = System.nanoTime();
+        long tat = allowAt[bucket];
+        if (tat - now < 0) {
+            tat = now;
+        }
+        if (tat - now <= limits.burstNanos(bucket)) {
+            allowAt[bucket] = tat + interval;
+            return ALLOW;
+        }
+        return violation(now);
+    }
+
+    /**
+     * 当前违规次数
+     */
+    public int getViolations() {
+        return violations;
+    }
+
+    private int violation(long now) {
+        if (violations > 0 && now - lastViolationNanos > VIOLATION_RESET_NANOS) {
+            violations = 0;
+        }
+        lastViolationNanos = now;
+        violations++;
+        DROPPED.increment();
+
+        if (violations >= limits.getDisconnectAfter()) {
+            DISCONNECTED.increment();
+            return DISCONNECT;
+        }
+        if (violations == limits.getWarnAfter()) {
+            WARNED.increment();
+            return WARN;
+        }
+        return DROP;
+    }
+}
@@ -0,0 +1,141 @@
+package server;
+
+import common.Protocol;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * 入站指令限流配置（所有连接共享，不可变）
+ * 每个客户端指令可以单独配置令牌桶：每秒补充的令牌数和桶容量（允许的突发条数）。
+ * 未单独配置的指令使用 default 配置；速率为 0 表示不限流。
+ *
+ * 系统属性格式：-Dfiveqi.rateLimit.指令名=每秒令牌数,桶容量，例如 -Dfiveqi.rateLimit.CHAT=3,6；
+ * -Dfiveqi.rateLimit.default=... 设置其余指令的默认限制
+ *
+ * 默认只限制会被放大的指令：聊天（广播给整个房间）、房间列表和房间状态请求（回复较大）
+ */
+public final class RateLimits {
+
+    /** 违规多少次后回复 ERROR 警告 */
+    public static final int DEFAULT_WARN_AFTER = 5;
+
+    /** 违规多少次后断开连接 */
+    public static final int DEFAULT_DISCONNECT_AFTER = 30;
+
+    private static final String[] COMMANDS = Protocol.CLIENT_COMMANDS;
+    private static final int DEFAULT_INDEX = COMMANDS.length; // 未知指令和未单独配置的指令
+
+    private static final Map<String, Integer> INDEX = new IdentityHashMap<>();
+
+    static {
+        for (int i = 0; i < COMMANDS.length; i++) {
+            INDEX.put(COMMANDS[i], i);
+        }
+    }
+
+    private final long[] intervalNanos; // 每个令牌的补充间隔，0 表示不限流
+    private final long[] burstNanos; // 允许提前消耗的时间额度：(桶容量 - 1) * 间隔
+    private final int warnAfter;
+    private final int disconnectAfter;
+
+    private RateLimits(double[] rates, int[] bursts, int warnAfter, int disconnectAfter) {
+        this.intervalNanos = new long[rates.length];
+        this.burstNanos = new long[rates.length];
+        for (int i = 0; i < rates.length; i++) {
+            if (rates[i] > 0) {
+                intervalNanos[i] = (long) (1_000_000_000L / rates[i]);
+                burstNanos[i] = intervalNanos[i] * Math.max(0, bursts[i] - 1);
+            }
+        }
+        this.warnAfter = warnAfter;
+        this.disconnectAfter = disconnectAfter;
+    }
+
+    /**
+     * 默认配置
+     */
+    public static RateLimits defaults() {
+        double[] rates = new double[DEFAULT_INDEX + 1];
+        int[] bursts = new int[DEFAULT_INDEX + 1];
+        set(rates, bursts, Protocol.CHAT, 3, 6);
+        set(rates, bursts, Protocol.GET_ROOM_LIST, 2, 5);
+        set(rates, bursts, Protocol.REQUEST_ROOM_STATE, 2, 5);
+        return new RateLimits(rates, bursts, DEFAULT_WARN_AFTER, DEFAULT_DISCONNECT_AFTER);
+    }
+
+    /**
+     * 在默认配置基础上读取系统属性
+     */
+    public static RateLimits fromProperties() {
+        RateLimits defaults = defaults();
+        double[] rates = new double[DEFAULT_INDEX + 1];
+        int[] bursts = new int[DEFAULT_INDEX + 1];
+        for (int i = 0; i <= DEFAULT_INDEX; i++) {
+            if (defaults.intervalNanos[i] > 0) {
+                rates[i] = 1_000_000_000.0 / defaults.intervalNanos[i];
+                bursts[i] = (int) (defaults.burstNanos[i] / defaults.intervalNanos[i]) + 1;
+            }
+        }
+        for (int i = 0; i <= DEFAULT_INDEX; i++) {
+            String name = i == DEFAULT_INDEX ? "default" : COMMANDS[i];
+            String value = System.getProperty("fiveqi.rateLimit." + name);
+            if (value == null) {
+                continue;
+            }
+            try {
+                String[] parts = value.split(",");
+                rates[i] = Double.parseDouble(parts[0].trim());
+                bursts[i] = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : (int) Math.ceil(rates[i]);
+            } catch (NumberFormatException e) {
+                Log.warn("无效的限流配置 fiveqi.rateLimit." + name + "=" + value + "，格式应为 每秒令牌数,桶容量");
+            }
+        }
+        // 已配置默认限制时，没有单独配置的指令使用默认限制
+        for (int i = 0; i < DEFAULT_INDEX; i++) {
+            if (rates[i] == 0 && System.getProperty("fiveqi.rateLimit." + COMMANDS[i]) == null) {
+                rates[i] = rates[DEFAULT_INDEX];
+                bursts[i] = bursts[DEFAULT_INDEX];
+            }
+        }
+        int warnAfter = Integer.getInteger("fiveqi.rateWarnAfter", DEFAULT_WARN_AFTER);
+        int disconnectAfter = Integer.getInteger("fiveqi.rateDisconnectAfter", DEFAULT_DISCONNECT_AFTER);
+        return new RateLimits(rates, bursts, Math.max(1, warnAfter), Math.max(1, disconnectAfter));
+    }
+
+    private static void set(double[] rates, int[] bursts, String command, double rate, int burst) {
+        int index = INDEX.get(command);
+        rates[index] = rate;
+        bursts[index] = burst;
+    }
+
+    /**
+     * 令牌桶数量（每个连接为每个桶保存一个时间戳）
+     */
+    int bucketCount() {
+        return intervalNanos.length;
+    }
+
+    /**
+     * 指令对应的桶（已知指令是协议常量，按引用查找，不分配）
+     */
+    int bucketOf(String command) {
+        Integer index = INDEX.get(command);
+        return index != null ? index : DEFAULT_INDEX;
+    }
+
+    long intervalNanos(int bucket) {
+        return intervalNanos[bucket];
+    }
+
+    long burstNanos(int bucket) {
+        return burstNanos[bucket];
+    }
+
+    int getWarnAfter() {
+        return warnAfter;
+    }
+
+    int getDisconnectAfter() {
+        return disconnectAfter;
+    }
+}
@@ -0,0 +1,200 @@
+package server;
+
+import common.Protocol;
+import common.RoomListDelta;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 带版本号的房间目录
+ * 房间的状态文本和人数变化时由 GameSession 推送进来，目录版本单调递增，
+ * 每个条目记录自己最后一次变化时的版本。查询增量时只遍历版本索引中新于客户端版本的部分，
+ * 而不是每次重新格式化全部房间。
+ *
+ * 关闭的房间保留为墓碑，墓碑数量超过上限时丢弃最旧的一批；
+ * 客户端版本早于已丢弃的墓碑时无法得知哪些房间被关闭，只能回复完整列表
+ */
+public class RoomDirectory {
+
+    private static final int MAX_TOMBSTONES = 256;
+
+    private static final class Entry {
+        final String roomId;
+        String status;
+        int memberCount;
+        long version;
+
+        Entry(String roomId) {
+            this.roomId = roomId;
+        }
+
+        boolean isRemoved() {
+            return memberCount == RoomListDelta.REMOVED;
+        }
+
+        RoomListDelta.Entry toDeltaEntry() {
+            return new RoomListDelta.Entry(roomId, status, memberCount);
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Entry> entries = new HashMap<>(); // 房间ID -> 条目（含墓碑）
+    private final TreeMap<Long, Entry> byVersion = new TreeMap<>(); // 版本 -> 条目
+    private final ArrayDeque<Entry> tombstones = new ArrayDeque<>(); // 按关闭顺序排列
+    private long version;
+    private long floorVersion; // 早于此版本的增量已无法还原
+    private int liveCount;
+
+    /**
+     * 登记新房间（房间ID被重新使用时以新条目取代旧的墓碑）
+     */
+    public void put(String roomId, String status, int memberCount) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(roomId);
+            if (entry != null && entry.isRemoved()) {
+                // 新条目的版本更新，持有旧版本的客户端照样能得知该ID的最新状态，旧墓碑直接丢弃
+                byVersion.remove(entry.version);
+                tombstones.remove(entry);
+                entry = null;
+            }
+            if (entry == null) {
+                entry = new Entry(roomId);
+                entries.put(roomId, entry);
+                liveCount++;
+            }
+            apply(entry, status, memberCount);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 更新房间状态；内容未变化时不产生新版本，已关闭或未登记的房间忽略
+     */
+    public void update(String roomId, String status, int memberCount) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(roomId);
+            if (entry == null || entry.isRemoved()) {
+                return;
+            }
+            if (entry.memberCount == memberCount && entry.status.equals(status)) {
+                return;
+            }
+            apply(entry, status, memberCount);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 房间关闭，留下墓碑
+     */
+    public void remove(String roomId) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(roomId);
+            if (entry == null || entry.isRemoved()) {
+                return;
+            }
+            liveCount--;
+            apply(entry, "", RoomListDelta.REMOVED);
+            tombstones.addLast(entry);
+            while (tombstones.size() > MAX_TOMBSTONES) {
+                Entry oldest = tombstones.removeFirst();
+                entries.remove(oldest.roomId);
+                byVersion.remove(oldest.version);
+                floorVersion = Math.max(floorVersion, oldest.version);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 查询自指定版本以来的变化
+     *
+     * @param sinceVersion 客户端已知的版本，0 表示没有本地列表
+     * @return 增量；客户端版本过旧、超前（服务器重启）或变化条目多于现存房间时返回完整列表
+     */
+    public RoomListDelta since(long sinceVersion) {
+        lock.lock();
+        try {
+            if (sinceVersion > 0 && sinceVersion >= floorVersion && sinceVersion <= version) {
+                Map<Long, Entry> changed = byVersion.tailMap(sinceVersion, false);
+                if (changed.size() <= liveCount) {
+                    List<RoomListDelta.Entry> result = new ArrayList<>(changed.size());
+                    for (Entry entry : changed.values()) {
+                        result.add(entry.toDeltaEntry());
+                    }
+                    return new RoomListDelta(version, false, result);
+                }
+            }
+            return new RoomListDelta(version, true, liveEntries());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 旧版完整列表格式："数量|房间ID|状态|N人|..."，没有房间时为 "0"
+     */
+    public String toLegacyList() {
+        lock.lock();
+        try {
+            if (liveCount == 0) {
+                return "0";
+            }
+            StringBuilder sb = new StringBuilder(8 + liveCount * 24);
+            sb.append(liveCount);
+            for (Entry entry : byVersion.values()) {
+                if (!entry.isRemoved()) {
+                    sb.append(Protocol.DELIMITER).append(entry.roomId)
+                            .append(Protocol.DELIMITER).append(entry.status)
+                            .append(Protocol.DELIMITER).append(entry.memberCount).append('人');
+                }
+            }
+            return sb.toString();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前目录版本
+     */
+    public long getVersion() {
+        lock.lock();
+        try {
+            return version;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<RoomListDelta.Entry> liveEntries() {
+        List<RoomListDelta.Entry> result = new ArrayList<>(liveCount);
+        for (Entry entry : byVersion.values()) {
+            if (!entry.isRemoved()) {
+                result.add(entry.toDeltaEntry());
+            }
+        }
+        return result;
+    }
+
+    private void apply(Entry entry, String status, int memberCount) {
+        if (entry.version != 0) {
+            byVersion.remove(entry.version);
+        }
+        entry.status = status;
+        entry.memberCount = memberCount;
+        entry.version = ++version;
+        byVersion.put(entry.version, entry);
+    }
+}
@@ -0,0 +1,191 @@
+package server;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 房间执行器（信箱模式）
+ * 每个房间拥有一个信箱，房间内的指令按到达顺序放入信箱，由房间所属分片的单个线程依次执行。
+ * 同一房间的指令不会并发执行，房间之间互不等待；分片数默认等于 CPU 核数，房间创建时轮流分配到各分片。
+ *
+ * 信箱一次最多连续执行 {@link #MAILBOX_BATCH} 条指令，之后重新排队，避免繁忙的房间占住分片线程。
+ * 落子走信箱的加急通道，每次取指令时先取加急通道，聊天刷屏时落子不必排在聊天后面
+ */
+public class RoomExecutors {
+
+    private static final int MAILBOX_BATCH = 64; // 信箱单次最多执行的指令数
+
+    /**
+     * 分片：一个执行线程及其统计
+     */
+    private static final class Shard {
+        private final ExecutorService executor;
+        private final LongAdder processed = new LongAdder(); // 已执行指令数
+        private final AtomicInteger queued = new AtomicInteger(); // 等待执行的指令数
+        private final AtomicInteger rooms = new AtomicInteger(); // 分配到该分片的房间数
+
+        Shard(int index) {
+            this.executor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "room-shard-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * 房间信箱
+     */
+    public static final class Mailbox implements Runnable {
+        private final Shard shard;
+        private final ConcurrentLinkedQueue<Runnable> commands = new ConcurrentLinkedQueue<>();
+        private final ConcurrentLinkedQueue<Runnable> urgent = new ConcurrentLinkedQueue<>(); // 加急通道
+        private final AtomicBoolean scheduled = new AtomicBoolean(); // 是否已在分片队列中
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Mailbox(Shard shard) {
+            this.shard = shard;
+            shard.rooms.incrementAndGet();
+        }
+
+        /**
+         * 投递指令（任意线程可调用）
+         */
+        public void submit(Runnable command) {
+            commands.offer(command);
+            shard.queued.incrementAndGet();
+            schedule();
+        }
+
+        /**
+         * 投递加急指令，先于普通指令执行（任意线程可调用）
+         */
+        public void submitUrgent(Runnable command) {
+            urgent.offer(command);
+            shard.queued.incrementAndGet();
+            schedule();
+        }
+
+        /**
+         * 房间关闭后释放分片上的房间计数（已投递的指令仍会执行）
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                shard.rooms.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void run() {
+            int count = 0;
+            Runnable command;
+            while (count < MAILBOX_BATCH && (command = next()) != null) {
+                shard.queued.decrementAndGet();
+                count++;
+                try {
+                    command.run();
+                } catch (RuntimeException e) {
+                    Log.error("房间指令执行异常: " + e.getMessage(), e);
+                }
+            }
+            shard.processed.add(count);
+
+            scheduled.set(false);
+            // 清除标记后再检查：期间投递的指令要么已看到标记为 false 自行调度，要么在这里被发现
+            if (!urgent.isEmpty() || !commands.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private Runnable next() {
+            Runnable command = urgent.poll();
+            return command != null ? command : commands.poll();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    shard.executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // 服务器正在关闭，丢弃剩余指令
+                    scheduled.set(false);
+                }
+            }
+        }
+    }
+
+    private final Shard[] shards;
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    /**
+     * @param shardCount 分片数（执行线程数）
+     */
+    public RoomExecutors(int shardCount) {
+        this.shards = new Shard[Math.max(1, shardCount)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i);
+        }
+    }
+
+    /**
+     * 为新房间创建信箱（轮流分配到各分片）
+     */
+    public Mailbox newMailbox() {
+        int index = (nextShard.getAndIncrement() & Integer.MAX_VALUE) % shards.length;
+        return new Mailbox(shards[index]);
+    }
+
+    /**
+     * 停止所有分片线程
+     */
+    public void shutdown() {
+        for (Shard shard : shards) {
+            shard.executor.shutdown();
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * 分片已执行的指令数
+     */
+    public long getProcessed(int shard) {
+        return shards[shard].processed.sum();
+    }
+
+    /**
+     * 分片等待执行的指令数（队列深度）
+     */
+    public int getQueueDepth(int shard) {
+        return shards[shard].queued.get();
+    }
+
+    /**
+     * 分配到分片的房间数
+     */
+    public int getRoomCount(int shard) {
+        return shards[shard].rooms.get();
+    }
+
+    /**
+     * 状态摘要（用于定时打印）：每个分片一项，格式为 房间数/队列深度/已执行指令数
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder("房间分片(房间/队列/已执行):");
+        for (int i = 0; i < shards.length; i++) {
+            sb.append(i == 0 ? " " : " | ")
+                    .append('#').append(i).append(' ')
+                    .append(getRoomCount(i)).append('/')
+                    .append(getQueueDepth(i)).append('/')
+                    .append(getProcessed(i));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,127 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 房间ID分配器
+ * 用位图记录正在使用的ID，分配和释放都是对单个 long 的 CAS，不需要锁。
+ * ID 固定为指定位数的十进制数（4 位时为 1000-9999），便于玩家手动输入。
+ *
+ * 分配时从游标处向后查找空闲位，每次跳过一整个 64 位字中已占用的部分，
+ * 游标随分配前移，刚释放的ID不会被立即重新分配
+ */
+public class RoomIdAllocator {
+
+    /** 支持的最小位数 */
+    public static final int MIN_DIGITS = 3;
+
+    /** 支持的最大位数（7 位时位图约 1.1 MB） */
+    public static final int MAX_DIGITS = 7;
+
+    private final int base; // 最小ID
+    private final int capacity; // ID总数
+    private final AtomicLongArray bits;
+    private final AtomicInteger cursor = new AtomicInteger(); // 下一次查找的起始下标
+    private final AtomicInteger allocated = new AtomicInteger();
+
+    /**
+     * @param digits ID位数（MIN_DIGITS-MAX_DIGITS）
+     */
+    public RoomIdAllocator(int digits) {
+        if (digits < MIN_DIGITS || digits > MAX_DIGITS) {
+            throw new IllegalArgumentException("房间ID位数必须在 " + MIN_DIGITS + "-" + MAX_DIGITS + " 之间: " + digits);
+        }
+        int base = 1;
+        for (int i = 1; i < digits; i++) {
+            base *= 10;
+        }
+        this.base = base;
+        this.capacity = base * 9;
+        this.bits = new AtomicLongArray((capacity + 63) >>> 6);
+
+        // 最后一个字中超出容量的位标记为已占用
+        int tail = capacity & 63;
+        if (tail != 0) {
+            bits.set(bits.length() - 1, -1L << tail);
+        }
+    }
+
+    /**
+     * 分配一个空闲ID
+     *
+     * @return ID；全部占用时返回 -1
+     */
+    public int allocate() {
+        int words = bits.length();
+        int index = cursor.get();
+        // 多扫一个字：起始字中游标之前的位在绕回后才检查
+        for (int scanned = 0; scanned <= words; scanned++) {
+            int word = index >>> 6;
+            long current = bits.get(word);
+            long free = ~current & (-1L << (index & 63));
+            while (free != 0) {
+                long bit = free & -free;
+                if (bits.compareAndSet(word, current, current | bit)) {
+                    int slot = (word << 6) + Long.numberOfTrailingZeros(bit);
+                    cursor.set(slot + 1 >= capacity ? 0 : slot + 1);
+                    allocated.incrementAndGet();
+                    return base + slot;
+                }
+                // 同一个字被其他线程修改，重新读取后继续
+                current = bits.get(word);
+                free = ~current & (-1L << (index & 63));
+            }
+            index = (word + 1) << 6;
+            if (index >= capacity) {
+                index = 0;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 释放ID（重复释放或不在范围内的ID忽略）
+     */
+    public void release(int id) {
+        int slot = id - base;
+        if (slot < 0 || slot >= capacity) {
+            return;
+        }
+        int word = slot >>> 6;
+        long bit = 1L << (slot & 63);
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & bit) == 0) {
+                return;
+            }
+        } while (!bits.compareAndSet(word, current, current & ~bit));
+        allocated.decrementAndGet();
+    }
+
+    /**
+     * 释放ID（房间ID字符串形式）
+     */
+    public void release(String roomId) {
+        try {
+            release(Integer.parseInt(roomId));
+        } catch (NumberFormatException e) {
+            // 不是本分配器分配的ID
+        }
+    }
+
+    /**
+     * 正在使用的ID数量
+     */
+    public int getAllocatedCount() {
+        return allocated.get();
+    }
+
+    /**
+     * ID总数
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+}
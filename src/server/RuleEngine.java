@@ -0,0 +1,105 @@
+package server;
+
+/**
+ * 五子棋规则引擎接口
+ * 房间只通过此接口落子和判定胜负，具体实现可以是二维数组（{@link ChessRule}）或位棋盘（{@link BitboardChessRule}）。
+ * 棋子取值：0-空，1-黑棋，2-白棋；坐标 x 为横坐标，y 为纵坐标
+ */
+public interface RuleEngine {
+
+    /** 规则引擎类型 - 二维数组逐格扫描（默认） */
+    String TYPE_ARRAY = "array";
+
+    /** 规则引擎类型 - 二维数组 + 增量连子长度表 */
+    String TYPE_RUNS = "runs";
+
+    /** 规则引擎类型 - 位棋盘 */
+    String TYPE_BITBOARD = "bitboard";
+
+    /**
+     * 按类型创建规则引擎，未知类型使用二维数组实现
+     */
+    static RuleEngine create(String type) {
+        if (TYPE_BITBOARD.equals(type)) {
+            return new BitboardChessRule();
+        }
+        return new ChessRule(TYPE_RUNS.equals(type));
+    }
+
+    /**
+     * 检查位置是否为空（越界返回 false）
+     */
+    boolean isEmpty(int x, int y);
+
+    /**
+     * 检查坐标是否合法
+     */
+    boolean isValidPosition(int x, int y);
+
+    /**
+     * 落子
+     * @param x 横坐标
+     * @param y 纵坐标
+     * @param color 棋子颜色（BLACK/WHITE）
+     * @return 是否落子成功
+     */
+    boolean placeStone(int x, int y, String color);
+
+    /**
+     * 按棋子值落子并压入走子栈（搜索、复盘等不经过颜色字符串的场景）
+     * @param stone 1-黑棋，2-白棋
+     * @return 是否落子成功
+     */
+    boolean makeMove(int x, int y, int stone);
+
+    /**
+     * 撤销最后一步落子（悔棋、搜索回溯），与 makeMove/placeStone 成对使用，不分配对象
+     * @return 被撤销的格子编号（x * 15 + y），棋盘为空时返回 -1
+     */
+    int unmakeMove();
+
+    /**
+     * 当前局面的 Zobrist 哈希（见 {@link Zobrist}），只由盘上棋子决定，与落子顺序和实现无关
+     */
+    long getHash();
+
+    /**
+     * 检查是否获胜：经过最后落子的四条线中，任意一条恰好连成五子（长连不算）
+     * @param x 最后落子的横坐标
+     * @param y 最后落子的纵坐标
+     */
+    boolean checkWin(int x, int y);
+
+    /**
+     * 检查是否平局（棋盘下满）
+     */
+    boolean checkDraw();
+
+    /**
+     * 获取棋盘状态（用于同步）
+     * @return 棋盘二维数组的副本，下标为 [x][y]
+     */
+    int[][] getBoardState();
+
+    /**
+     * 获取落子顺序（用于同步）
+     * @return 按落子先后排列的格子编号（x * 15 + y）副本
+     */
+    int[] getMoveHistory();
+
+    /**
+     * 获取指定位置的棋子
+     * @return 0-空，1-黑棋，2-白棋，越界返回 -1
+     */
+    int getStone(int x, int y);
+
+    /**
+     * 重置棋盘（不分配对象）
+     */
+    void reset();
+
+    /**
+     * 获取已落子数量
+     */
+    int getMoveCount();
+}
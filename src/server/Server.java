@@ -1,6 +1,7 @@
 package server;
 
 import common.Protocol;
+import common.RoomListDelta;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
@@ -13,23 +14,62 @@ import java.util.concurrent.*;
  */
 public class Server {
 
+    private static final int ACCEPT_BACKLOG = 1024;
+    private static final long LOBBY_PUSH_INTERVAL_MS = 500; // 大厅推送周期，周期内的变化合并为一批
+    private static final long TIMER_TICK_MS = 100; // 时间轮每格时长
+    private static final int TIMER_WHEEL_SIZE = 512; // 时间轮槽数
+    private static final long EMPTY_ROOM_GRACE_MS = 3000; // 房间变为空后保留的时间
+
     private int port;
+    private ServerConfig config;
     private ServerSocket serverSocket;
+    private NioTransport nioTransport; // 仅NIO模式使用
     private ExecutorService threadPool;
     private Map<String, ClientHandler> clients; // 用户名 -> ClientHandler
     private Map<String, GameSession> gameSessions; // 房间ID -> GameSession
+    private RoomDirectory roomDirectory; // 带版本号的房间列表
+    private LobbyPublisher lobbyPublisher; // 大厅订阅推送
+    private JoinableRoomIndex joinableRooms; // 快速加入索引
     private volatile boolean running;
-    private int roomIdCounter; // 房间ID计数器
-    private ScheduledExecutorService cleanupScheduler; // 房间清理调度器
+    private RoomIdAllocator roomIds; // 房间ID分配器
+    private ScheduledExecutorService cleanupScheduler; // 定时任务调度器
+    private TimingWheel timingWheel; // 定时器时间轮
+    private EmptyRoomReclaimer roomReclaimer; // 空房间回收
+    private RoomExecutors roomExecutors; // 仅信箱模式使用
+    private AdminServer adminServer; // 管理端统计接口（可能为空）
+    private HeartbeatMonitor heartbeat; // 心跳与空闲连接回收（可能为空）
+    private VirtualThreadMonitor virtualThreadMonitor; // 仅虚拟线程模式使用
 
     public Server(int port) {
-        this.port = port;
+        this(new ServerConfig(port));
+    }
+
+    public Server(ServerConfig config) {
+        this.config = config;
+        this.port = config.getPort();
         this.clients = new ConcurrentHashMap<>();
         this.gameSessions = new ConcurrentHashMap<>();
+        this.roomDirectory = new RoomDirectory();
+        this.lobbyPublisher = new LobbyPublisher(roomDirectory);
+        this.joinableRooms = new JoinableRoomIndex();
+        this.roomIds = new RoomIdAllocator(config.getRoomIdDigits());
         this.threadPool = Executors.newCachedThreadPool();
         this.cleanupScheduler = Executors.newScheduledThreadPool(1);
+        this.timingWheel = new TimingWheel(TIMER_TICK_MS, TIMER_WHEEL_SIZE);
+        this.roomReclaimer = new EmptyRoomReclaimer(this, timingWheel, EMPTY_ROOM_GRACE_MS);
+        if (ServerConfig.ROOM_EXECUTION_MAILBOX.equals(config.getRoomExecution())) {
+            this.roomExecutors = new RoomExecutors(config.getRoomShards());
+        }
+
+        if (config.getHeartbeatIntervalMs() > 0) {
+            this.heartbeat = new HeartbeatMonitor(timingWheel, config.getHeartbeatIntervalMs(),
+                    config.getIdleTimeoutMs(), config.getLegacyIdleTimeoutMs());
+        }
+
+        Metrics.gauge("server.online", this::getOnlineCount);
+        Metrics.gauge("server.rooms", this::getActiveRoomCount);
+        Metrics.gauge("server.lobbySubscribers", () -> lobbyPublisher.getSubscriberCount());
         this.running = false;
-        this.roomIdCounter = 1000;
     }
 
     /**
@@ -37,39 +77,97 @@ public class Server {
      */
     public void start() {
         try {
-            serverSocket = new ServerSocket(port);
             running = true;
-            System.out.println("服务器启动成功，监听端口: " + port);
 
-            // 启动房间清理任务（每1秒检查一次）
+            // 推进时间轮（空房间回收等定时任务）
+            cleanupScheduler.scheduleAtFixedRate(
+                    timingWheel::tick,
+                    TIMER_TICK_MS, TIMER_TICK_MS, TimeUnit.MILLISECONDS);
+
+            // 启动大厅推送任务
             cleanupScheduler.scheduleAtFixedRate(
-                    this::cleanupEmptyRooms,
-                    1, 1, TimeUnit.SECONDS);
+                    lobbyPublisher::publish,
+                    LOBBY_PUSH_INTERVAL_MS, LOBBY_PUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+            if (ServerConfig.TRANSPORT_NIO.equals(config.getTransport())) {
+                // NIO模式：由事件循环处理所有连接；先绑定游戏端口，再启动管理端
+                nioTransport = new NioTransport(this, port, config.getIoThreads(),
+                        config.getOutboundQueueCapacity(), config.getOutboundBulkQueueCapacity());
+                nioTransport.bind();
+                startAdminServer();
+                nioTransport.start();
+                return;
+            }
+
+            String modeName = "阻塞模式";
+            if (ServerConfig.TRANSPORT_VIRTUAL.equals(config.getTransport())) {
+                ExecutorService virtualExecutor = VirtualThreadMonitor.newVirtualThreadExecutor();
+                if (virtualExecutor != null) {
+                    threadPool.shutdown();
+                    threadPool = virtualExecutor;
+                    virtualThreadMonitor = new VirtualThreadMonitor();
+                    virtualThreadMonitor.start();
+                    modeName = "虚拟线程模式";
+                } else {
+                    Log.warn("当前JDK不支持虚拟线程（需要JDK 21），回退到阻塞模式");
+                }
+            }
+
+            // 大量连接同时建立时需要更长的等待队列
+            serverSocket = new ServerSocket(port, ACCEPT_BACKLOG);
+            startAdminServer();
+            Log.info("服务器启动成功（" + modeName + "），监听端口: " + port);
 
             // 接受客户端连接
             while (running) {
                 try {
                     Socket clientSocket = serverSocket.accept();
-                    System.out.println("新客户端连接: " + clientSocket.getInetAddress());
-
-                    // 创建客户端处理器并提交到线程池
-                    ClientHandler handler = new ClientHandler(clientSocket, this);
-                    threadPool.execute(handler);
+                    clientSocket.setKeepAlive(true); // 不支持心跳的客户端断线后由 TCP keepalive 发现
+                    Log.info("新客户端连接: " + clientSocket.getInetAddress());
+
+                    // 创建客户端处理器并提交到线程池：每个连接一个读任务和一个写任务，
+                    // 阻塞模式下即每连接两个平台线程
+                    SocketConnection connection = new SocketConnection(clientSocket,
+                            config.getOutboundQueueCapacity(), config.getOutboundBulkQueueCapacity());
+                    ClientHandler handler = new ClientHandler(connection, this);
+                    trackConnection(handler);
+                    threadPool.execute(connection.getWriter());
+                    if (virtualThreadMonitor != null) {
+                        threadPool.execute(virtualThreadMonitor.track(handler));
+                    } else {
+                        threadPool.execute(handler);
+                    }
 
                 } catch (IOException e) {
                     if (running) {
-                        System.err.println("接受连接异常: " + e.getMessage());
+                        Log.error("接受连接异常: " + e.getMessage());
                     }
                 }
             }
 
         } catch (IOException e) {
-            System.err.println("服务器启动失败: " + e.getMessage());
+            Log.error("服务器启动失败: " + e.getMessage());
         } finally {
             stop();
         }
     }
 
+    /**
+     * 启动管理端统计接口（在游戏端口绑定成功之后调用，失败不影响游戏服务）
+     */
+    private void startAdminServer() {
+        if (config.getAdminPort() <= 0) {
+            return;
+        }
+        try {
+            adminServer = new AdminServer(this, config.getAdminPort());
+            adminServer.start();
+        } catch (IOException e) {
+            Log.error("管理端启动失败: " + e.getMessage());
+            adminServer = null;
+        }
+    }
+
     /**
      * 停止服务器
      */
@@ -79,11 +177,31 @@ public class Server {
         // 关闭清理调度器
         cleanupScheduler.shutdown();
 
+        // 停止管理端
+        if (adminServer != null) {
+            adminServer.stop();
+        }
+
+        // 停止NIO事件循环
+        if (nioTransport != null) {
+            nioTransport.stop();
+        }
+
+        // 停止虚拟线程统计
+        if (virtualThreadMonitor != null) {
+            virtualThreadMonitor.stop();
+        }
+
         // 关闭所有客户端连接
         for (ClientHandler client : clients.values()) {
             client.disconnect();
         }
 
+        // 停止房间分片线程
+        if (roomExecutors != null) {
+            roomExecutors.shutdown();
+        }
+
         // 关闭线程池
         threadPool.shutdown();
         try {
@@ -100,27 +218,33 @@ public class Server {
                 serverSocket.close();
             }
         } catch (IOException e) {
-            System.err.println("关闭服务器套接字异常: " + e.getMessage());
+            Log.error("关闭服务器套接字异常: " + e.getMessage());
         }
 
-        System.out.println("服务器已停止");
+        Log.info("服务器已停止");
+        Log.flush(1000);
     }
 
     /**
      * 添加客户端
+     * 用户名唯一性由 putIfAbsent 原子保证，不需要全局锁
+     *
+     * @return 用户名已被占用时返回 false
      */
-    public synchronized void addClient(ClientHandler client) {
-        clients.put(client.getUsername(), client);
-        System.out.println("用户 " + client.getUsername() + " 已连接");
+    public boolean addClient(ClientHandler client) {
+        if (clients.putIfAbsent(client.getUsername(), client) != null) {
+            return false;
+        }
+        Log.info("用户 " + client.getUsername() + " 已连接");
+        return true;
     }
 
     /**
-     * 移除客户端
+     * 移除客户端（只移除映射到该连接的条目）
      */
-    public synchronized void removeClient(ClientHandler client) {
-        if (client.getUsername() != null) {
-            clients.remove(client.getUsername());
-            System.out.println("用户 " + client.getUsername() + " 已移除");
+    public void removeClient(ClientHandler client) {
+        if (client.getUsername() != null && clients.remove(client.getUsername(), client)) {
+            Log.info("用户 " + client.getUsername() + " 已移除");
         }
     }
 
@@ -132,19 +256,13 @@ public class Server {
     }
 
     /**
-     * 生成房间ID（4位数字）
+     * 分配房间ID（默认4位数字），跳过仍在使用的ID
+     *
+     * @return 房间ID；所有ID都在使用时返回 null
      */
-    private synchronized String generateRoomId() {
-        // 生成4位数字ID，从1000开始
-        String roomId = String.format("%04d", roomIdCounter);
-        roomIdCounter++;
-
-        // 如果超过9999，重置为1000
-        if (roomIdCounter > 9999) {
-            roomIdCounter = 1000;
-        }
-
-        return roomId;
+    private String generateRoomId() {
+        int id = roomIds.allocate();
+        return id < 0 ? null : String.valueOf(id);
     }
 
     /**
@@ -157,25 +275,78 @@ public class Server {
     /**
      * 移除游戏会话
      */
-    public synchronized void removeGameSession(String roomId) {
+    public void removeGameSession(String roomId) {
         GameSession session = gameSessions.remove(roomId);
         if (session != null) {
-            System.out.println("房间 " + roomId + " 已关闭");
+            session.close();
+            roomDirectory.remove(roomId);
+            roomIds.release(roomId);
+            Log.info("房间 " + roomId + " 已关闭");
         }
     }
 
     /**
-     * 清理空房间
+     * 回收空房间（宽限期到期后由时间轮调用，期间有人加入则已取消）
      */
-    public synchronized void cleanupEmptyRooms() {
-        gameSessions.entrySet().removeIf(entry -> {
-            GameSession session = entry.getValue();
-            if (session.isEmpty()) {
-                System.out.println("自动清理空房间: " + entry.getKey());
-                return true;
-            }
-            return false;
-        });
+    public void reclaimRoom(GameSession session) {
+        String roomId = session.getRoomId();
+        // 在房间锁内确认为空并关闭，与并发的加入互斥；之后的加入会因房间已关闭而失败
+        if (session.closeIfEmpty() && gameSessions.remove(roomId, session)) {
+            roomDirectory.remove(roomId);
+            roomIds.release(roomId);
+            Log.info("自动清理空房间: " + roomId);
+        }
+    }
+
+    /**
+     * 获取大厅订阅推送
+     */
+    public LobbyPublisher getLobbyPublisher() {
+        return lobbyPublisher;
+    }
+
+    /**
+     * 开始跟踪新连接的心跳（连接建立时调用，包括尚未登录的连接）
+     */
+    void trackConnection(ClientHandler handler) {
+        if (heartbeat != null) {
+            heartbeat.register(handler);
+        }
+    }
+
+    /**
+     * 获取启动配置
+     */
+    public ServerConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * 当前在线的客户端（并发容器的实时视图，遍历时不加锁）
+     */
+    Collection<ClientHandler> getClientHandlers() {
+        return clients.values();
+    }
+
+    /**
+     * 当前的房间（并发容器的实时视图，遍历时不加锁）
+     */
+    Collection<GameSession> getGameSessions() {
+        return gameSessions.values();
+    }
+
+    /**
+     * 房间执行器（仅信箱模式，否则为空）
+     */
+    RoomExecutors getRoomExecutors() {
+        return roomExecutors;
+    }
+
+    /**
+     * 获取虚拟线程统计（非虚拟线程模式返回 null）
+     */
+    public VirtualThreadMonitor getVirtualThreadMonitor() {
+        return virtualThreadMonitor;
     }
 
     /**
@@ -196,21 +367,55 @@ public class Server {
      * 打印服务器状态
      */
     public void printStatus() {
-        System.out.println("========== 服务器状态 ==========");
-        System.out.println("在线用户数: " + getOnlineCount());
-        System.out.println("活跃房间: " + getActiveRoomCount());
-        System.out.println("==============================");
+        Log.info("========== 服务器状态 ==========");
+        Log.info("在线用户数: " + getOnlineCount());
+        Log.info("活跃房间: " + getActiveRoomCount());
+        Log.info("大厅订阅: " + lobbyPublisher.getSubscriberCount());
+        Log.info(BroadcastStats.summary());
+        for (String line : Metrics.summaryLines()) {
+            Log.info(line);
+        }
+        if (Log.getDropped() > 0) {
+            Log.info("日志丢弃: " + Log.getDropped() + " 条");
+        }
+        if (roomExecutors != null) {
+            Log.info(roomExecutors.summary());
+        }
+        if (virtualThreadMonitor != null) {
+            Log.info("载体线程: " + virtualThreadMonitor.getCarrierCount()
+                    + " | 虚拟线程: " + virtualThreadMonitor.getLiveThreads()
+                    + " | 已挂载: " + virtualThreadMonitor.getMountedThreads()
+                    + " | 钉住事件: " + virtualThreadMonitor.getPinnedEvents());
+        }
+        Log.info("==============================");
     }
 
     /**
      * 创建房间
+     *
+     * @return 房间ID；房间ID已用尽时返回 null
      */
-    public synchronized String createEmptyRoom(ClientHandler creator) {
+    public String createEmptyRoom(ClientHandler creator) {
         String roomId = generateRoomId();
-        GameSession session = new GameSession(roomId, creator);
+        if (roomId == null) {
+            return null;
+        }
+        RoomExecutors.Mailbox mailbox = roomExecutors != null ? roomExecutors.newMailbox() : null;
+        GameSession session;
+        try {
+            session = new GameSession(roomId, creator, roomDirectory, joinableRooms, roomReclaimer,
+                    mailbox, RuleEngine.create(config.getRuleEngine()));
+        } catch (RuntimeException e) {
+            // 房间未建成，归还房间ID和信箱，避免ID和分片房间数泄漏
+            if (mailbox != null) {
+                mailbox.release();
+            }
+            roomIds.release(roomId);
+            throw e;
+        }
         gameSessions.put(roomId, session);
 
-        System.out.println("用户 " + creator.getUsername() + " 创建房间: " + roomId);
+        Log.info("用户 " + creator.getUsername() + " 创建房间: " + roomId);
 
         return roomId;
     }
@@ -218,82 +423,62 @@ public class Server {
     /**
      * 加入指定房间
      */
-    public synchronized boolean joinRoom(String roomId, ClientHandler joiner) {
+    public boolean joinRoom(String roomId, ClientHandler joiner) {
         GameSession session = gameSessions.get(roomId);
 
-        if (session == null) {
+        // 房间可能在取出后被清理，join 在房间锁内检查
+        if (session == null || !session.join(joiner)) {
             // 不在这里发送错误消息，由调用方决定
             return false;
         }
-
-        // 添加成员到房间
-        session.addMember(joiner);
-        System.out.println("用户 " + joiner.getUsername() + " 加入房间: " + roomId);
+        Log.info("用户 " + joiner.getUsername() + " 加入房间: " + roomId);
 
         return true;
     }
 
     /**
      * 快速加入可用房间
+     * 从可加入房间索引中无锁取出最合适的房间，不持有注册表锁；
+     * 取出后房间恰好被清理时跳过，继续取下一个
      */
-    public synchronized boolean quickJoinRoom(ClientHandler joiner) {
-        // 查找第一个有空位的房间
-        for (Map.Entry<String, GameSession> entry : gameSessions.entrySet()) {
-            GameSession session = entry.getValue();
-            // 加入房间
-            session.addMember(joiner);
-            System.out.println("用户 " + joiner.getUsername() + " 快速加入房间: " + entry.getKey());
-            return true;
+    public boolean quickJoinRoom(ClientHandler joiner) {
+        GameSession session;
+        while ((session = joinableRooms.poll()) != null) {
+            if (session.quickJoin(joiner)) {
+                Log.info("用户 " + joiner.getUsername() + " 快速加入房间: " + session.getRoomId());
+                return true;
+            }
         }
-
         return false;
     }
 
     /**
-     * 获取房间列表
+     * 获取房间列表（旧版完整格式）
      */
     public String getRoomList() {
-        if (gameSessions.isEmpty()) {
-            return "0"; // 没有房间
-        }
-
-        StringBuilder sb = new StringBuilder();
-        sb.append(gameSessions.size()); // 房间数量
-
-        for (Map.Entry<String, GameSession> entry : gameSessions.entrySet()) {
-            String roomId = entry.getKey();
-            GameSession session = entry.getValue();
-            String status = session.getStatusText();
-            int memberCount = session.getMemberCount();
-
-            sb.append(Protocol.DELIMITER);
-            sb.append(String.format("%s|%s|%d人", roomId, status, memberCount));
-        }
+        return roomDirectory.toLegacyList();
+    }
 
-        return sb.toString();
+    /**
+     * 获取自指定版本以来的房间列表变化
+     */
+    public RoomListDelta getRoomListDelta(long sinceVersion) {
+        return roomDirectory.since(sinceVersion);
     }
 
     /**
      * 主方法
      */
     public static void main(String[] args) {
-        int port = Protocol.DEFAULT_PORT;
-
-        // 从命令行参数获取端口
-        if (args.length > 0) {
-            try {
-                port = Integer.parseInt(args[0]);
-            } catch (NumberFormatException e) {
-                System.err.println("无效的端口号，使用默认端口: " + Protocol.DEFAULT_PORT);
-            }
-        }
+        // 从命令行参数和系统属性读取配置
+        ServerConfig config = ServerConfig.fromArgs(args);
 
         // 创建并启动服务器
-        Server server = new Server(port);
+        Server server = new Server(config);
 
         // 添加关闭钩子
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            System.out.println("\n正在关闭服务器...");
+            Log.info("正在关闭服务器...");
             server.stop();
         }));
 
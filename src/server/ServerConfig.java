@@ -0,0 +1,239 @@
+package server;
+
+import common.Protocol;
+
+/**
+ * 服务器启动配置
+ * 命令行参数优先，其次读取 -Dfiveqi.* 系统属性，最后使用默认值
+ *
+ * 用法：java server.Server [端口] [传输模式]
+ */
+public class ServerConfig {
+
+    /** 传输模式 - 每个连接一个线程，阻塞读写（默认） */
+    public static final String TRANSPORT_BLOCKING = "blocking";
+
+    /** 传输模式 - NIO Selector 事件循环 */
+    public static final String TRANSPORT_NIO = "nio";
+
+    /** 传输模式 - 每个连接一个虚拟线程（需要 JDK 21） */
+    public static final String TRANSPORT_VIRTUAL = "virtual";
+
+    /** 房间执行模式 - 连接线程在房间锁内直接执行房间指令（默认） */
+    public static final String ROOM_EXECUTION_LOCK = "lock";
+
+    /** 房间执行模式 - 房间指令投递到房间信箱，由分片线程按顺序执行 */
+    public static final String ROOM_EXECUTION_MAILBOX = "mailbox";
+
+    private int port;
+    private String transport;
+    private int ioThreads;
+    private int outboundQueueCapacity;
+    private int outboundBulkQueueCapacity;
+    private int roomIdDigits;
+    private String roomExecution;
+    private int roomShards;
+    private int adminPort;
+    private long heartbeatIntervalMs;
+    private long idleTimeoutMs;
+    private long legacyIdleTimeoutMs;
+    private String ruleEngine;
+    private RateLimits rateLimits;
+
+    public ServerConfig(int port) {
+        this.port = port;
+        this.transport = TRANSPORT_BLOCKING;
+        this.ioThreads = Runtime.getRuntime().availableProcessors();
+        this.outboundQueueCapacity = 1024;
+        this.outboundBulkQueueCapacity = 256;
+        this.roomIdDigits = 4;
+        this.roomExecution = ROOM_EXECUTION_LOCK;
+        this.roomShards = Runtime.getRuntime().availableProcessors();
+        this.adminPort = 0;
+        this.heartbeatIntervalMs = 15000;
+        this.idleTimeoutMs = 45000;
+        this.legacyIdleTimeoutMs = 3600000;
+        this.ruleEngine = RuleEngine.TYPE_ARRAY;
+        this.rateLimits = RateLimits.defaults();
+    }
+
+    /**
+     * 从命令行参数和系统属性构建配置
+     */
+    public static ServerConfig fromArgs(String[] args) {
+        ServerConfig config = new ServerConfig(Integer.getInteger("fiveqi.port", Protocol.DEFAULT_PORT));
+        config.transport = System.getProperty("fiveqi.transport", TRANSPORT_BLOCKING);
+        config.ioThreads = Integer.getInteger("fiveqi.ioThreads", config.ioThreads);
+        config.outboundQueueCapacity = Integer.getInteger("fiveqi.outboundQueue", config.outboundQueueCapacity);
+        config.outboundBulkQueueCapacity = Integer.getInteger("fiveqi.outboundBulkQueue",
+                config.outboundBulkQueueCapacity);
+        config.roomIdDigits = Integer.getInteger("fiveqi.roomIdDigits", config.roomIdDigits);
+        config.roomExecution = System.getProperty("fiveqi.roomExecution", config.roomExecution);
+        config.roomShards = Integer.getInteger("fiveqi.roomShards", config.roomShards);
+        config.heartbeatIntervalMs = Long.getLong("fiveqi.heartbeatInterval", config.heartbeatIntervalMs);
+        config.idleTimeoutMs = Long.getLong("fiveqi.idleTimeout", config.idleTimeoutMs);
+        config.legacyIdleTimeoutMs = Long.getLong("fiveqi.legacyIdleTimeout", config.legacyIdleTimeoutMs);
+        config.rateLimits = RateLimits.fromProperties();
+        config.ruleEngine = System.getProperty("fiveqi.ruleEngine", config.ruleEngine);
+
+        // 从命令行参数获取端口
+        if (args.length > 0) {
+            try {
+                config.port = Integer.parseInt(args[0]);
+            } catch (NumberFormatException e) {
+                Log.warn("无效的端口号，使用默认端口: " + Protocol.DEFAULT_PORT);
+                config.port = Protocol.DEFAULT_PORT;
+            }
+        }
+
+        // 管理端口默认为游戏端口 + 1（多个实例各用不同的游戏端口时不会冲突）
+        config.adminPort = Integer.getInteger("fiveqi.adminPort", config.port + 1);
+
+        // 从命令行参数获取传输模式
+        if (args.length > 1) {
+            config.transport = args[1];
+        }
+
+        if (!TRANSPORT_BLOCKING.equals(config.transport) && !TRANSPORT_NIO.equals(config.transport)
+                && !TRANSPORT_VIRTUAL.equals(config.transport)) {
+            Log.warn("未知的传输模式: " + config.transport + "，使用默认模式: " + TRANSPORT_BLOCKING);
+            config.transport = TRANSPORT_BLOCKING;
+        }
+
+        if (config.ioThreads < 1) {
+            config.ioThreads = 1;
+        }
+        if (config.outboundQueueCapacity < 1) {
+            config.outboundQueueCapacity = 1;
+        }
+        if (config.outboundBulkQueueCapacity < 1) {
+            config.outboundBulkQueueCapacity = 1;
+        }
+        if (config.roomIdDigits < RoomIdAllocator.MIN_DIGITS || config.roomIdDigits > RoomIdAllocator.MAX_DIGITS) {
+            Log.warn("房间ID位数必须在 " + RoomIdAllocator.MIN_DIGITS + "-" + RoomIdAllocator.MAX_DIGITS
+                    + " 之间，使用默认值: 4");
+            config.roomIdDigits = 4;
+        }
+        if (!ROOM_EXECUTION_LOCK.equals(config.roomExecution) && !ROOM_EXECUTION_MAILBOX.equals(config.roomExecution)) {
+            Log.warn("未知的房间执行模式: " + config.roomExecution + "，使用默认模式: " + ROOM_EXECUTION_LOCK);
+            config.roomExecution = ROOM_EXECUTION_LOCK;
+        }
+        if (config.roomShards < 1) {
+            config.roomShards = 1;
+        }
+        if (config.adminPort < 0 || config.adminPort > 65535) {
+            Log.warn("无效的管理端口: " + config.adminPort + "，不启动管理端");
+            config.adminPort = 0;
+        } else if (config.adminPort == config.port) {
+            Log.warn("管理端口不能与游戏端口相同: " + config.adminPort + "，不启动管理端");
+            config.adminPort = 0;
+        }
+        if (!RuleEngine.TYPE_ARRAY.equals(config.ruleEngine) && !RuleEngine.TYPE_RUNS.equals(config.ruleEngine)
+                && !RuleEngine.TYPE_BITBOARD.equals(config.ruleEngine)) {
+            Log.warn("未知的规则引擎: " + config.ruleEngine + "，使用默认引擎: " + RuleEngine.TYPE_ARRAY);
+            config.ruleEngine = RuleEngine.TYPE_ARRAY;
+        }
+        if (config.heartbeatIntervalMs > 0 && config.idleTimeoutMs <= config.heartbeatIntervalMs) {
+            // 至少要给对端一个心跳间隔来回复 PONG
+            config.idleTimeoutMs = config.heartbeatIntervalMs * 3;
+            Log.warn("空闲超时必须大于心跳间隔，使用: " + config.idleTimeoutMs + " 毫秒");
+        }
+        if (config.legacyIdleTimeoutMs < 0) {
+            config.legacyIdleTimeoutMs = 0;
+        }
+
+        return config;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public String getTransport() {
+        return transport;
+    }
+
+    /**
+     * NIO 模式下的事件循环线程数
+     */
+    public int getIoThreads() {
+        return ioThreads;
+    }
+
+    /**
+     * 每个连接发送队列的最大消息数，超过后断开慢速连接
+     */
+    public int getOutboundQueueCapacity() {
+        return outboundQueueCapacity;
+    }
+
+    /**
+     * 每个连接低优先级发送通道（聊天、系统提示）的最大消息数，超过后丢弃新消息
+     */
+    public int getOutboundBulkQueueCapacity() {
+        return outboundBulkQueueCapacity;
+    }
+
+    /**
+     * 房间ID位数
+     */
+    public int getRoomIdDigits() {
+        return roomIdDigits;
+    }
+
+    /**
+     * 房间执行模式（lock/mailbox）
+     */
+    public String getRoomExecution() {
+        return roomExecution;
+    }
+
+    /**
+     * 信箱模式下的房间分片数（执行线程数）
+     */
+    public int getRoomShards() {
+        return roomShards;
+    }
+
+    /**
+     * 管理端统计接口端口（只监听本机），0 表示不启动
+     */
+    public int getAdminPort() {
+        return adminPort;
+    }
+
+    /**
+     * 连接空闲多久后发送 PING（毫秒），0 表示关闭心跳和空闲回收
+     */
+    public long getHeartbeatIntervalMs() {
+        return heartbeatIntervalMs;
+    }
+
+    /**
+     * 支持心跳的连接空闲多久后断开（毫秒）
+     */
+    public long getIdleTimeoutMs() {
+        return idleTimeoutMs;
+    }
+
+    /**
+     * 不支持心跳的连接（旧版客户端、未登录的连接）空闲多久后断开（毫秒），0 表示不断开
+     */
+    public long getLegacyIdleTimeoutMs() {
+        return legacyIdleTimeoutMs;
+    }
+
+    /**
+     * 规则引擎类型（array/runs/bitboard）
+     */
+    public String getRuleEngine() {
+        return ruleEngine;
+    }
+
+    /**
+     * 入站指令限流配置
+     */
+    public RateLimits getRateLimits() {
+        return rateLimits;
+    }
+}
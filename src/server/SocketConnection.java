@@ -0,0 +1,119 @@
+package server;
+
+import common.FrameDecoder;
+import java.io.*;
+import java.net.Socket;
+
+/**
+ * 阻塞模式连接
+ * 由 ClientHandler 所在线程阻塞读取并分帧，
+ * 发送进入有界队列后由独立写线程合并写出（见 OutboundQueue）。
+ * 读写缓冲区都保持很小，且不使用 synchronized，
+ * 以便在虚拟线程模式下单个 JVM 可以承载大量空闲连接
+ */
+public class SocketConnection implements Connection {
+
+    private static final int READ_BUFFER_SIZE = 1024;
+
+    /** 单条消息最大长度，超过视为异常连接 */
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    private Socket socket;
+    private InputStream input;
+    private OutboundQueue outbound;
+    private volatile boolean binary;
+
+    // 读取状态（仅读线程访问）
+    private byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+    private FrameDecoder decoder = new FrameDecoder(MAX_LINE_LENGTH);
+
+    public SocketConnection(Socket socket, int outboundCapacity, int outboundBulkCapacity) throws IOException {
+        this.socket = socket;
+        this.input = socket.getInputStream();
+        this.outbound = new OutboundQueue(socket.getOutputStream(), outboundCapacity, outboundBulkCapacity);
+    }
+
+    /**
+     * 获取写线程任务，需提交到线程池运行
+     */
+    public Runnable getWriter() {
+        return outbound;
+    }
+
+    /**
+     * 阻塞读取一批数据
+     *
+     * @return 读取的字节数，连接关闭时返回 -1
+     */
+    public int read() throws IOException {
+        return input.read(readBuffer);
+    }
+
+    /**
+     * 对刚读取的数据分帧，并把完整的消息交给回调
+     *
+     * @param length read() 返回的字节数
+     */
+    public void dispatch(int length, FrameDecoder.Listener listener) throws IOException {
+        decoder.feed(readBuffer, 0, length, listener);
+    }
+
+    @Override
+    public int send(OutboundMessage message) {
+        if (socket.isClosed()) {
+            return 0;
+        }
+        byte[] bytes = message.bytes(binary);
+        if (message.isBulk()) {
+            // 低优先级通道满时只丢弃这条消息
+            if (outbound.offerBulk(bytes)) {
+                Metrics.OUTBOUND_MESSAGES.increment();
+                Metrics.OUTBOUND_BYTES.add(bytes.length);
+                return bytes.length;
+            }
+            Metrics.OUTBOUND_BULK_DROPPED.increment();
+            return 0;
+        }
+        if (outbound.offer(bytes)) {
+            Metrics.OUTBOUND_MESSAGES.increment();
+            Metrics.OUTBOUND_BYTES.add(bytes.length);
+            return bytes.length;
+        }
+        // 队列已满：对端消费过慢，断开连接，由读线程负责清理
+        Log.warn("客户端 " + getRemoteAddress() + " 发送队列已满，断开连接");
+        close();
+        return 0;
+    }
+
+    @Override
+    public void setBinary(boolean binary) {
+        this.binary = binary;
+        decoder.setBinary(binary);
+    }
+
+    @Override
+    public void close() {
+        outbound.close();
+        try {
+            if (!socket.isClosed())
+                socket.close();
+        } catch (IOException e) {
+            Log.error("关闭连接异常: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !socket.isClosed();
+    }
+
+    @Override
+    public String getRemoteAddress() {
+        return String.valueOf(socket.getInetAddress());
+    }
+
+    @Override
+    public int getPendingCount() {
+        return outbound.size();
+    }
+}
@@ -0,0 +1,176 @@
+package server;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 哈希时间轮定时器
+ * 环形槽数组，每个槽是一个双向链表，指针每个 tick 前进一格并执行当前槽中到期的任务。
+ * 添加和取消定时任务都是 O(1)：任意线程添加的任务先进入无锁队列，由推进线程放入对应的槽；
+ * 取消只做标记，推进到该槽时顺带移除。
+ *
+ * tick() 由外部定时调用（单线程），到期任务在该线程中执行，应当快速完成
+ */
+public class TimingWheel {
+
+    /**
+     * 定时任务句柄
+     */
+    public static final class Timeout {
+        private Runnable task;
+        private final long deadline; // 相对时间轮启动时刻的毫秒数
+        private long remainingRounds;
+        private Timeout prev;
+        private Timeout next;
+        private volatile boolean cancelled;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 取消任务（任务已执行时无效果）
+         * 同时释放任务引用，等待移除的句柄不再持有任务捕获的对象
+         */
+        public void cancel() {
+            cancelled = true;
+            task = null;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    /**
+     * 槽：到期时间落在同一格的任务链表（只由推进线程访问）
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        Timeout remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.prev == null) {
+                head = next;
+            } else {
+                timeout.prev.next = next;
+            }
+            if (next == null) {
+                tail = timeout.prev;
+            } else {
+                next.prev = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            return next;
+        }
+    }
+
+    private final long tickMs;
+    private final Bucket[] buckets;
+    private final int mask;
+    private final long startTime;
+    private final ConcurrentLinkedQueue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private long tick; // 下一个待处理的 tick（只由推进线程访问）
+
+    /**
+     * @param tickMs    每格的时长（毫秒）
+     * @param wheelSize 槽数（向上取整为 2 的幂）
+     */
+    public TimingWheel(long tickMs, int wheelSize) {
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.tickMs = tickMs;
+        this.buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.startTime = System.nanoTime() / 1000000;
+    }
+
+    /**
+     * 添加定时任务（任意线程可调用）
+     *
+     * @param delayMs 延迟毫秒数
+     */
+    public Timeout schedule(Runnable task, long delayMs) {
+        Timeout timeout = new Timeout(task, now() + Math.max(0, delayMs));
+        pending.offer(timeout);
+        return timeout;
+    }
+
+    /**
+     * 推进时间轮，执行所有已到期的任务
+     */
+    public void tick() {
+        long now = now();
+        while ((tick + 1) * tickMs <= now) {
+            transferPending();
+            expire(buckets[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    /**
+     * 每格的时长（毫秒）
+     */
+    public long getTickMs() {
+        return tickMs;
+    }
+
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            long expiryTick = timeout.deadline / tickMs;
+            timeout.remainingRounds = (expiryTick - tick) / buckets.length;
+            // 已经过期的任务放到当前格，本次推进即执行
+            long slot = Math.max(expiryTick, tick);
+            buckets[(int) (slot & mask)].add(timeout);
+        }
+    }
+
+    private void expire(Bucket bucket) {
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            if (timeout.cancelled) {
+                timeout = bucket.remove(timeout);
+            } else if (timeout.remainingRounds <= 0) {
+                Timeout next = bucket.remove(timeout);
+                Runnable task = timeout.task;
+                try {
+                    if (task != null) {
+                        task.run();
+                    }
+                } catch (RuntimeException e) {
+                    Log.error("定时任务执行异常: " + e.getMessage(), e);
+                }
+                timeout = next;
+            } else {
+                timeout.remainingRounds--;
+                timeout = timeout.next;
+            }
+        }
+    }
+
+    private long now() {
+        return System.nanoTime() / 1000000 - startTime;
+    }
+}
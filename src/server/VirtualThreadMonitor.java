@@ -0,0 +1,123 @@
+package server;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 虚拟线程模式的执行器与运行统计
+ * 虚拟线程相关 API 需要 JDK 21，这里通过反射调用，低版本 JDK 仍可编译和运行其他模式
+ */
+public class VirtualThreadMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private AtomicInteger liveThreads = new AtomicInteger(); // 存活的连接虚拟线程
+    private AtomicInteger mountedThreads = new AtomicInteger(); // 正在处理消息（已挂载到载体线程）的虚拟线程
+    private LongAdder pinnedEvents = new LongAdder(); // JFR 记录到的钉住事件
+    private Object recordingStream; // jdk.jfr.consumer.RecordingStream
+
+    /**
+     * 创建每任务一个虚拟线程的执行器
+     *
+     * @return 执行器；当前 JDK 不支持虚拟线程时返回 null
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 启动 JFR 事件流统计钉住事件
+     */
+    @SuppressWarnings("unchecked")
+    public void start() {
+        try {
+            Class<?> streamClass = Class.forName("jdk.jfr.consumer.RecordingStream");
+            Object stream = streamClass.getConstructor().newInstance();
+
+            // 记录所有钉住事件（默认阈值为 20ms）
+            Object settings = streamClass.getMethod("enable", String.class).invoke(stream, PINNED_EVENT);
+            Class.forName("jdk.jfr.EventSettings")
+                    .getMethod("withThreshold", Duration.class)
+                    .invoke(settings, Duration.ZERO);
+
+            Consumer<Object> onPinned = event -> pinnedEvents.increment();
+            streamClass.getMethod("onEvent", String.class, Consumer.class).invoke(stream, PINNED_EVENT, onPinned);
+            streamClass.getMethod("startAsync").invoke(stream);
+            recordingStream = stream;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            Log.warn("无法启动钉住事件统计: " + e);
+        }
+    }
+
+    /**
+     * 停止 JFR 事件流
+     */
+    public void stop() {
+        if (recordingStream == null) {
+            return;
+        }
+        try {
+            recordingStream.getClass().getMethod("close").invoke(recordingStream);
+        } catch (ReflectiveOperationException e) {
+            Log.error("关闭钉住事件统计异常: " + e);
+        }
+        recordingStream = null;
+    }
+
+    /**
+     * 包装连接任务，统计存活的虚拟线程
+     */
+    public Runnable track(Runnable task) {
+        return () -> {
+            liveThreads.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                liveThreads.decrementAndGet();
+            }
+        };
+    }
+
+    /**
+     * 开始处理消息（虚拟线程已挂载）
+     */
+    public void mounted() {
+        mountedThreads.incrementAndGet();
+    }
+
+    /**
+     * 消息处理完毕，回到阻塞读取（虚拟线程将被卸载）
+     */
+    public void unmounted() {
+        mountedThreads.decrementAndGet();
+    }
+
+    /**
+     * 载体线程数（虚拟线程调度器并行度）
+     */
+    public int getCarrierCount() {
+        return Integer.getInteger("jdk.virtualThreadScheduler.parallelism",
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    public int getLiveThreads() {
+        return liveThreads.get();
+    }
+
+    public int getMountedThreads() {
+        return mountedThreads.get();
+    }
+
+    public long getPinnedEvents() {
+        return pinnedEvents.sum();
+    }
+}
@@ -0,0 +1,39 @@
+package server;
+
+import common.Protocol;
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist 哈希键表
+ * 每种颜色的每个格子对应一个 64 位随机数，局面哈希是盘上所有棋子对应键的异或，
+ * 落子和撤销各只需一次异或即可增量更新。
+ *
+ * 随机数用固定种子生成，同一局面在不同进程、不同规则引擎中的哈希相同，可以直接用作缓存键
+ */
+public final class Zobrist {
+
+    private static final int CELLS = Protocol.BOARD_SIZE * Protocol.BOARD_SIZE;
+    private static final long SEED = 0x5EED_F1FE_0B0A_4D15L;
+
+    private static final long[] KEYS = new long[2 * CELLS]; // 黑棋在前，白棋在后
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < KEYS.length; i++) {
+            KEYS[i] = random.nextLong();
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * 棋子的哈希键
+     *
+     * @param stone 1-黑棋，2-白棋
+     * @param cell 格子编号（x * 15 + y）
+     */
+    public static long key(int stone, int cell) {
+        return KEYS[(stone - 1) * CELLS + cell];
+    }
+}